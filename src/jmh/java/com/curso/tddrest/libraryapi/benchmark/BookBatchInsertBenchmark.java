@@ -0,0 +1,71 @@
+package com.curso.tddrest.libraryapi.benchmark;
+
+import com.curso.tddrest.libraryapi.LibraryApiApplication;
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão de inserção de livros: um {@code save} por livro (como {@code POST /api/books}) contra
+ * {@code saveAll} (como {@code POST /api/books/batch}), em H2 com batching JDBC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookBatchInsertBenchmark {
+
+    private static final int BOOKS_PER_INVOCATION = 1000;
+
+    private ConfigurableApplicationContext context;
+    private BookService service;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off",
+                        "spring.devtools.restart.enabled=false",
+                        "logging.level.root=warn")
+                .run();
+        service = context.getBean(BookService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOOKS_PER_INVOCATION)
+    public void oneAtATime() {
+        for (Book book : nextBooks()) {
+            service.save(book);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOOKS_PER_INVOCATION)
+    public void batch() {
+        service.saveAll(nextBooks());
+    }
+
+    private List<Book> nextBooks() {
+        List<Book> books = new ArrayList<>(BOOKS_PER_INVOCATION);
+        for (int i = 0; i < BOOKS_PER_INVOCATION; i++) {
+            long n = sequence++;
+            books.add(Book.builder().isbn("isbn-" + n).title("Titulo " + n).author("Autor " + n).build());
+        }
+        return books;
+    }
+}
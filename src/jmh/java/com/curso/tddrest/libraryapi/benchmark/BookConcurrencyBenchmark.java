@@ -0,0 +1,74 @@
+package com.curso.tddrest.libraryapi.benchmark;
+
+import com.curso.tddrest.libraryapi.LibraryApiApplication;
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão de {@code GET /api/books} (busca que vai ao banco) com 400 clientes simultâneos, acima do teto de
+ * 200 threads do Tomcat, com as requisições em threads de plataforma e em threads virtuais
+ * (profile {@code virtual-threads}). O modo {@code virtual} só sobe em Java 21.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(400)
+@Fork(1)
+public class BookConcurrencyBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .profiles("virtual".equals(threads) ? new String[]{"virtual-threads"} : new String[0])
+                .properties("server.port=0",
+                        "spring.main.banner-mode=off",
+                        "spring.devtools.restart.enabled=false",
+                        "logging.level.root=warn")
+                .run();
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/api/books";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        BookService service = context.getBean(BookService.class);
+        List<Book> books = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            books.add(Book.builder().isbn("catalogo-" + i).title("Titulo " + i).author("Autor " + (i % 1000)).build());
+        }
+        service.saveAll(books);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int search() throws IOException, InterruptedException {
+        URI uri = URI.create(baseUrl + "?author=autor%20" + ThreadLocalRandom.current().nextInt(1000) + "&page=0&size=10");
+        return client.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
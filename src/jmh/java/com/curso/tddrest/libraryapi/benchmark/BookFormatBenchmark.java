@@ -0,0 +1,87 @@
+package com.curso.tddrest.libraryapi.benchmark;
+
+import com.curso.tddrest.libraryapi.model.dto.request.BookRequest;
+import com.curso.tddrest.libraryapi.model.dto.response.BookPageResponse;
+import com.curso.tddrest.libraryapi.model.dto.response.BookResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Codificação e decodificação de uma página de 20 livros e de um {@code BookRequest} em JSON, CBOR e Smile,
+ * com o {@code Page} do Spring e com o envelope enxuto. O tamanho de cada payload é impresso no início do
+ * trial, já que não varia entre iterações.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookFormatBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private Page<BookResponse> page;
+    private BookPageResponse leanPage;
+    private byte[] encodedLeanPage;
+    private byte[] encodedRequest;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (format.equals("cbor")) {
+            builder.factory(new CBORFactory());
+        } else if (format.equals("smile")) {
+            builder.factory(new SmileFactory());
+        }
+        objectMapper = builder.build();
+
+        List<BookResponse> content = new ArrayList<>(PAGE_SIZE);
+        for (long i = 0; i < PAGE_SIZE; i++) {
+            content.add(new BookResponse(i, "Titulo " + i, "Autor " + i, "isbn-" + i, 0L));
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, PAGE_SIZE), 10_000);
+        leanPage = new BookPageResponse(content, 0, PAGE_SIZE, 10_000, 10_000 / PAGE_SIZE);
+        encodedLeanPage = objectMapper.writeValueAsBytes(leanPage);
+        encodedRequest = objectMapper.writeValueAsBytes(
+                new BookRequest("Machado de Assis", "Memórias Póstumas de Brás Cubas", "978-85-01"));
+
+        System.out.printf("%n%s: page %d bytes, lean page %d bytes, request %d bytes%n", format,
+                objectMapper.writeValueAsBytes(page).length, encodedLeanPage.length, encodedRequest.length);
+    }
+
+    @Benchmark
+    public byte[] encodePage() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] encodeLeanPage() throws IOException {
+        return objectMapper.writeValueAsBytes(leanPage);
+    }
+
+    @Benchmark
+    public BookPageResponse decodeLeanPage() throws IOException {
+        return objectMapper.readValue(encodedLeanPage, BookPageResponse.class);
+    }
+
+    @Benchmark
+    public BookRequest decodeRequest() throws IOException {
+        return objectMapper.readValue(encodedRequest, BookRequest.class);
+    }
+}
@@ -0,0 +1,72 @@
+package com.curso.tddrest.libraryapi.benchmark;
+
+import com.curso.tddrest.libraryapi.model.dto.response.BookResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do Jackson para serializar um {@code BookResponse} (detalhe) e um {@code Page<BookResponse>}
+ * (busca), com o {@code ObjectMapper} configurado como o do Spring MVC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookJsonBenchmark {
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter bookWriter;
+    private BookResponse book;
+
+    @State(Scope.Benchmark)
+    public static class PageState {
+
+        @Param({"20", "100"})
+        int pageSize;
+
+        Page<BookResponse> page;
+
+        @Setup
+        public void setUp() {
+            List<BookResponse> content = new ArrayList<>(pageSize);
+            for (long i = 0; i < pageSize; i++) {
+                content.add(new BookResponse(i, "Titulo " + i, "Autor " + i, "isbn-" + i, 0L));
+            }
+            page = new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        bookWriter = objectMapper.writerFor(BookResponse.class);
+        book = new BookResponse(1L, "Memórias Póstumas de Brás Cubas", "Machado de Assis", "978-85-01", 3L);
+    }
+
+    @Benchmark
+    public byte[] book() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(book);
+    }
+
+    @Benchmark
+    public byte[] bookWithBoundWriter() throws JsonProcessingException {
+        return bookWriter.writeValueAsBytes(book);
+    }
+
+    @Benchmark
+    public byte[] page(PageState state) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(state.page);
+    }
+}
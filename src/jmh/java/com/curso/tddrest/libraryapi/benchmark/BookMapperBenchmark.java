@@ -0,0 +1,115 @@
+package com.curso.tddrest.libraryapi.benchmark;
+
+import com.curso.tddrest.libraryapi.mapper.BookMapper;
+import com.curso.tddrest.libraryapi.mapper.impl.BookMapperImpl;
+import com.curso.tddrest.libraryapi.model.dto.request.BookFilter;
+import com.curso.tddrest.libraryapi.model.dto.request.BookRequest;
+import com.curso.tddrest.libraryapi.model.dto.response.BookResponse;
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compara o custo por chamada (e, com -prof gc, a alocação) do ModelMapper reflexivo
+ * com o {@link BookMapperImpl} nos mesmos caminhos usados pelo BookController.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookMapperBenchmark {
+
+    private ModelMapper modelMapper;
+    private BookMapper bookMapper;
+
+    private BookRequest request;
+    private BookFilter filter;
+    private Book book;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        bookMapper = new BookMapperImpl();
+
+        request = BookRequest.builder().author("Autor Famoso").title("Titulo Bacana").isbn("123").build();
+        filter = BookFilter.builder().title("bacana").build();
+        book = Book.builder().id(1L).author("Autor Famoso").title("Titulo Bacana").isbn("123").build();
+    }
+
+    @State(Scope.Benchmark)
+    public static class PageState {
+
+        @Param({"20", "100"})
+        int pageSize;
+
+        List<Book> page;
+
+        @Setup
+        public void setUp() {
+            page = new ArrayList<>(pageSize);
+            for (long i = 0; i < pageSize; i++) {
+                page.add(Book.builder().id(i).author("Autor " + i).title("Titulo " + i).isbn("isbn-" + i).build());
+            }
+        }
+    }
+
+    @Benchmark
+    public Book requestToEntityModelMapper() {
+        return modelMapper.map(request, Book.class);
+    }
+
+    @Benchmark
+    public Book requestToEntityBookMapper() {
+        return bookMapper.toEntity(request);
+    }
+
+    @Benchmark
+    public Book filterToEntityModelMapper() {
+        return modelMapper.map(filter, Book.class);
+    }
+
+    @Benchmark
+    public Book filterToEntityBookMapper() {
+        return bookMapper.toEntity(filter);
+    }
+
+    @Benchmark
+    public BookResponse entityToResponseModelMapper() {
+        return modelMapper.map(book, BookResponse.class);
+    }
+
+    @Benchmark
+    public BookResponse entityToResponseBookMapper() {
+        return bookMapper.toResponse(book);
+    }
+
+    @Benchmark
+    public List<BookResponse> pageToResponseModelMapper(PageState state) {
+        return state.page.stream()
+                .map(entity -> modelMapper.map(entity, BookResponse.class))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<BookResponse> pageToResponseBookMapper(PageState state) {
+        return bookMapper.toResponse(state.page);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BookMapperBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
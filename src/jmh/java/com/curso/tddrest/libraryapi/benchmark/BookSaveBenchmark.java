@@ -0,0 +1,93 @@
+package com.curso.tddrest.libraryapi.benchmark;
+
+import com.curso.tddrest.libraryapi.LibraryApiApplication;
+import com.curso.tddrest.libraryapi.exception.BusinessException;
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.repository.BookRepository;
+import com.curso.tddrest.libraryapi.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latência do cadastro unitário ({@code POST /api/books}) com a checagem de ISBN duplicado: ISBN novo,
+ * ISBN já cadastrado (rejeitado pelo índice único) e, como referência, o caminho antigo de
+ * {@code existsByIsbn} seguido do insert.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookSaveBenchmark {
+
+    @Param({"1000", "100000"})
+    private int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private BookService service;
+    private BookRepository repository;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off",
+                        "spring.devtools.restart.enabled=false",
+                        "logging.level.root=warn")
+                .run();
+        service = context.getBean(BookService.class);
+        repository = context.getBean(BookRepository.class);
+
+        List<Book> chunk = new ArrayList<>();
+        for (int i = 0; i < catalogSize; i++) {
+            chunk.add(Book.builder().isbn("catalogo-" + i).title("Titulo " + i).author("Autor " + i).build());
+            if (chunk.size() == 10_000) {
+                service.saveAll(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+        service.saveAll(chunk);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Book saveNew() {
+        return service.save(nextBook());
+    }
+
+    @Benchmark
+    public boolean saveDuplicate() {
+        try {
+            service.save(Book.builder().isbn("catalogo-" + (sequence++ % catalogSize)).title("Titulo").author("Autor").build());
+            return true;
+        } catch (BusinessException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public Book existsThenSave() {
+        Book book = nextBook();
+        if (repository.existsByIsbn(book.getIsbn())) {
+            throw new IllegalStateException();
+        }
+        return repository.save(book);
+    }
+
+    private Book nextBook() {
+        long n = sequence++;
+        return Book.builder().isbn("novo-" + n).title("Titulo " + n).author("Autor " + n).build();
+    }
+}
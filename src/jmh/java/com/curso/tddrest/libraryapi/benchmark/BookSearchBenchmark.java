@@ -0,0 +1,111 @@
+package com.curso.tddrest.libraryapi.benchmark;
+
+import com.curso.tddrest.libraryapi.LibraryApiApplication;
+import com.curso.tddrest.libraryapi.datasource.ReadOnlyTransactions;
+import com.curso.tddrest.libraryapi.datasource.ReplicaLagFallback;
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.repository.BookRepository;
+import com.curso.tddrest.libraryapi.search.BookCountCache;
+import com.curso.tddrest.libraryapi.search.BookSearchIndex;
+import com.curso.tddrest.libraryapi.search.IsbnBloomFilter;
+import com.curso.tddrest.libraryapi.service.BookService;
+import com.curso.tddrest.libraryapi.service.impl.BookServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latência de {@code BookService.find} com o índice de trigramas contra o {@code LIKE '%termo%'}
+ * do Example, em catálogos de tamanhos diferentes, até um milhão de livros.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class BookSearchBenchmark {
+
+    private static final String[] WORDS = {
+            "amor", "guerra", "cidade", "sertão", "rio", "mar", "noite", "sombra", "jardim", "viagem",
+            "memória", "silêncio", "tempo", "destino", "fogo", "montanha", "estrada", "janela", "retrato", "segredo",
+            "vento", "pedra", "ouro", "lua", "sol", "inverno", "verão", "ilha", "porto", "castelo",
+            "floresta", "deserto", "espelho", "labirinto", "relógio", "carta", "diário", "sonho", "abismo", "horizonte"
+    };
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private BookService indexed;
+    private BookService like;
+    private final PageRequest page = PageRequest.of(0, 20);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off",
+                        "spring.devtools.restart.enabled=false",
+                        "logging.level.root=warn")
+                .run();
+        indexed = context.getBean(BookService.class);
+        BookRepository repository = context.getBean(BookRepository.class);
+        like = new BookServiceImpl(repository, new BookSearchIndex(repository, false),
+                context.getBean(BookCountCache.class), context.getBean(IsbnBloomFilter.class),
+                context.getBean(ReadOnlyTransactions.class), ReplicaLagFallback.disabled(), new SimpleMeterRegistry());
+
+        Random random = new Random(42);
+        List<Book> chunk = new ArrayList<>();
+        for (int i = 0; i < catalogSize; i++) {
+            chunk.add(Book.builder()
+                    .isbn("isbn-" + i)
+                    .title(word(random) + " " + word(random) + " " + word(random))
+                    .author("Autor " + random.nextInt(catalogSize / 10))
+                    .build());
+            if (chunk.size() == 10_000) {
+                indexed.saveAll(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+        indexed.saveAll(chunk);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Book> titleIndexed() {
+        return indexed.find(Book.builder().title("LABIRINTO").build(), page);
+    }
+
+    @Benchmark
+    public Page<Book> titleLike() {
+        return like.find(Book.builder().title("LABIRINTO").build(), page);
+    }
+
+    @Benchmark
+    public Page<Book> titleAndAuthorIndexed() {
+        return indexed.find(Book.builder().title("sombra").author("autor 12").build(), page);
+    }
+
+    @Benchmark
+    public Page<Book> titleAndAuthorLike() {
+        return like.find(Book.builder().title("sombra").author("autor 12").build(), page);
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
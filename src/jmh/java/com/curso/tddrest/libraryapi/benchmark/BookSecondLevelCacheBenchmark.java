@@ -0,0 +1,153 @@
+package com.curso.tddrest.libraryapi.benchmark;
+
+import com.curso.tddrest.libraryapi.LibraryApiApplication;
+import com.curso.tddrest.libraryapi.model.batch.BookBatchResult;
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.repository.BookRepository;
+import com.curso.tddrest.libraryapi.service.BookService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leituras repetidas no repositório, com o cache de segundo nível e o de consultas do Hibernate ligados e
+ * desligados: {@code findById} num conjunto quente de {@value #HOT_SET} livros, {@code existsByIsbn} e a busca
+ * por Example de {@code BookService.find}, e uma carga mista em que {@code patch} altera um livro do conjunto a
+ * cada {@value #WRITE_EVERY} operações. Além da latência, conta os comandos JDBC preparados ({@code statements})
+ * e as operações feitas ({@code reads}); {@code statements / reads} são as idas ao banco por operação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookSecondLevelCacheBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+    private static final int HOT_SET = 100;
+    private static final int WRITE_EVERY = 10;
+
+    @Param({"true", "false"})
+    private boolean cache;
+
+    private ConfigurableApplicationContext context;
+    private BookRepository repository;
+    private Statistics statistics;
+    private List<Long> hotIds;
+    private List<Example<Book>> hotFilters;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off",
+                        "spring.devtools.restart.enabled=false",
+                        "logging.level.root=warn")
+                // como argumentos, e não em properties(), para valer sobre o application.properties
+                .run("--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + cache,
+                        "--spring.jpa.properties.hibernate.cache.use_query_cache=" + cache);
+        repository = context.getBean(BookRepository.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        BookService service = context.getBean(BookService.class);
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            books.add(Book.builder().isbn("catalogo-" + i).title("Titulo " + i).author("Autor " + (i % HOT_SET)).build());
+        }
+        hotIds = new ArrayList<>();
+        hotFilters = new ArrayList<>();
+        for (BookBatchResult result : service.saveAll(books)) {
+            if (hotIds.size() < HOT_SET) {
+                hotIds.add(result.getBook().getId());
+                hotFilters.add(Example.of(Book.builder().author(result.getBook().getAuthor()).build(),
+                        ExampleMatcher.matching().withIgnoreNullValues()));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Contadores por iteração; {@code statements / reads} dá os comandos JDBC por leitura.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RoundTrips {
+        public long statements;
+        public long reads;
+        int next;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            statements = 0;
+            reads = 0;
+        }
+    }
+
+    @Benchmark
+    public Optional<Book> findById(RoundTrips roundTrips) {
+        long before = statistics.getPrepareStatementCount();
+        Optional<Book> book = repository.findById(hotIds.get(roundTrips.next++ % HOT_SET));
+        count(roundTrips, before);
+        return book;
+    }
+
+    @Benchmark
+    public boolean existsByIsbn(RoundTrips roundTrips) {
+        long before = statistics.getPrepareStatementCount();
+        boolean exists = repository.existsByIsbn("catalogo-" + roundTrips.next++ % HOT_SET);
+        count(roundTrips, before);
+        return exists;
+    }
+
+    @Benchmark
+    public Page<Book> findByExample(RoundTrips roundTrips) {
+        long before = statistics.getPrepareStatementCount();
+        Page<Book> page = repository.findAll(hotFilters.get(roundTrips.next++ % HOT_SET), PageRequest.of(0, 20));
+        count(roundTrips, before);
+        return page;
+    }
+
+    /**
+     * Leituras por id com uma escrita por id no meio. Se a escrita esvaziasse a região {@code book} inteira, as
+     * leituras seguintes de todo o conjunto quente voltariam ao banco, e não só a do livro alterado.
+     */
+    @Benchmark
+    public Optional<Book> mixedReadWrite(RoundTrips roundTrips) {
+        long before = statistics.getPrepareStatementCount();
+        int operation = roundTrips.next++;
+        Optional<Book> book;
+        if (operation % WRITE_EVERY == 0) {
+            // Percorre o conjunto quente, para que as leituras seguintes voltem aos livros alterados.
+            Long written = hotIds.get(operation / WRITE_EVERY % HOT_SET);
+            repository.patch(written, Book.builder().title("Titulo " + operation).build());
+            book = Optional.empty();
+        } else {
+            book = repository.findById(hotIds.get(operation % HOT_SET));
+        }
+        count(roundTrips, before);
+        return book;
+    }
+
+    private void count(RoundTrips roundTrips, long before) {
+        roundTrips.statements += statistics.getPrepareStatementCount() - before;
+        roundTrips.reads++;
+    }
+}
@@ -1,17 +1,14 @@
 package com.curso.tddrest.libraryapi;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
-@SpringBootApplication
+// O R2DBC da API v2 é configurado em R2dbcConfig sobre o banco do JPA; a ConnectionFactory do Boot desligaria o DataSource.
+@SpringBootApplication(exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
 public class LibraryApiApplication {
 
-    @Bean
-    public ModelMapper modelMapper(){
-        return new ModelMapper();
-    }
     public static void main(String[] args) {
         SpringApplication.run(LibraryApiApplication.class, args);
     }
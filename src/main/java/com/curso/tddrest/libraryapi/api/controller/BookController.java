@@ -1,25 +1,63 @@
 package com.curso.tddrest.libraryapi.api.controller;
 
+import com.curso.tddrest.libraryapi.api.etag.BookETag;
 import com.curso.tddrest.libraryapi.api.exception.ApiErrors;
+import com.curso.tddrest.libraryapi.api.export.BookExportFormat;
+import com.curso.tddrest.libraryapi.api.export.ExportTimeoutInterceptor;
+import com.curso.tddrest.libraryapi.api.importer.BookImporter;
 import com.curso.tddrest.libraryapi.exception.BusinessException;
+import com.curso.tddrest.libraryapi.mapper.BookMapper;
+import com.curso.tddrest.libraryapi.model.batch.BookBatchResult;
 import com.curso.tddrest.libraryapi.model.dto.request.BookFilter;
+import com.curso.tddrest.libraryapi.model.dto.request.BookPatchRequest;
+import com.curso.tddrest.libraryapi.model.dto.response.BookBatchItemResponse;
+import com.curso.tddrest.libraryapi.model.dto.response.BookBatchResponse;
+import com.curso.tddrest.libraryapi.model.dto.response.BookCursorResponse;
+import com.curso.tddrest.libraryapi.model.dto.response.BookDeleteResponse;
+import com.curso.tddrest.libraryapi.model.dto.response.BookImportResponse;
+import com.curso.tddrest.libraryapi.model.dto.response.BookLookupResponse;
+import com.curso.tddrest.libraryapi.model.dto.response.BookPageResponse;
 import com.curso.tddrest.libraryapi.model.dto.response.BookResponse;
+import com.curso.tddrest.libraryapi.model.dto.response.BookSliceResponse;
 import com.curso.tddrest.libraryapi.model.dto.request.BookRequest;
 import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.model.pagination.BookKeyset;
 import com.curso.tddrest.libraryapi.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
@@ -27,56 +65,279 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class BookController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+    private static final int MAX_IDS = 1000;
+    private static final int MAX_BATCH_SIZE = 1000;
+
     private final BookService service;
-    private final ModelMapper mapper;
+    private final BookMapper mapper;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final BookImporter importer;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public BookResponse createBook(@RequestBody @Valid BookRequest request) {
-        Book entity = mapper.map(request, Book.class);
+        Book entity = mapper.toEntity(request);
         entity = service.save(entity);
-        return mapper.map(entity, BookResponse.class);
+        return mapper.toResponse(entity);
     }
 
-    @GetMapping("/{id}")
+    /**
+     * Lotes maiores que {@value #MAX_BATCH_SIZE} livros são recusados inteiros; para cargas grandes use
+     * {@code /import}, que lê o corpo em streaming.
+     */
+    @PostMapping("/batch")
     @ResponseStatus(HttpStatus.OK)
-    public BookResponse getBookDetails(@PathVariable Long id) {
+    public BookBatchResponse createBooks(@RequestBody List<BookRequest> requests) {
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new BusinessException("O lote deve ter no máximo " + MAX_BATCH_SIZE + " livros");
+        }
+        BookBatchItemResponse[] items = new BookBatchItemResponse[requests.size()];
+        List<Integer> indexes = new ArrayList<>(requests.size());
+        List<Book> entities = new ArrayList<>(requests.size());
+
+        for (int i = 0; i < requests.size(); i++) {
+            if (requests.get(i) == null) {
+                items[i] = new BookBatchItemResponse(i, BookBatchItemResponse.Status.REJECTED, null,
+                        Collections.singletonList("Livro não informado"));
+                continue;
+            }
+            Set<ConstraintViolation<BookRequest>> violations = validator.validate(requests.get(i));
+            if (violations.isEmpty()) {
+                indexes.add(i);
+                entities.add(mapper.toEntity(requests.get(i)));
+            } else {
+                List<String> errors = violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .collect(Collectors.toList());
+                items[i] = new BookBatchItemResponse(i, BookBatchItemResponse.Status.REJECTED, null, errors);
+            }
+        }
+
+        List<BookBatchResult> results = entities.isEmpty() ? Collections.emptyList() : service.saveAll(entities);
+        int created = 0;
+        for (int i = 0; i < results.size(); i++) {
+            BookBatchResult result = results.get(i);
+            int index = indexes.get(i);
+            if (result.isCreated()) {
+                created++;
+                items[index] = new BookBatchItemResponse(index, BookBatchItemResponse.Status.CREATED,
+                        mapper.toResponse(result.getBook()), null);
+            } else {
+                items[index] = new BookBatchItemResponse(index, BookBatchItemResponse.Status.REJECTED,
+                        null, Collections.singletonList(result.getError()));
+            }
+        }
+        return new BookBatchResponse(created, requests.size() - created, Arrays.asList(items));
+    }
+
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    @ResponseStatus(HttpStatus.OK)
+    public BookImportResponse importBooks(InputStream body,
+                                          @RequestHeader("Content-Type") MediaType contentType) throws IOException {
+        return importer.importBooks(body, contentType);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<BookResponse> getBookDetails(@PathVariable Long id) {
         return service.getById(id)
-                .map(book -> mapper.map(book, BookResponse.class))
+                .map(book -> ResponseEntity.ok()
+                        .eTag(BookETag.of(book))
+                        .body(mapper.toResponse(book)))
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
+    /**
+     * Vários livros por id numa só requisição, na ordem pedida; os ids inexistentes voltam em {@code missing}.
+     */
+    @GetMapping(params = {"ids", "!cursor", "!count"})
+    @ResponseStatus(HttpStatus.OK)
+    public BookLookupResponse getBooks(@RequestParam List<Long> ids) {
+        Set<Long> distinct = distinctIds(ids);
+        Map<Long, Book> books = service.getByIds(distinct);
+        List<BookResponse> content = new ArrayList<>(books.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : distinct) {
+            Book book = books.get(id);
+            if (book == null) {
+                missing.add(id);
+            } else {
+                content.add(mapper.toResponse(book));
+            }
+        }
+        return new BookLookupResponse(content, missing);
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteBook(@PathVariable Long id) {
-        Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        service.delete(book);
+        if (!service.deleteById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
     }
 
-    @PutMapping("/{id}")
+    @DeleteMapping(params = "ids")
     @ResponseStatus(HttpStatus.OK)
-    public BookResponse updateBook(@PathVariable Long id, @RequestBody @Valid BookRequest request) {
+    public BookDeleteResponse deleteBooks(@RequestParam List<Long> ids) {
+        Set<Long> distinct = distinctIds(ids);
+        return new BookDeleteResponse(distinct.size(), service.deleteAllById(distinct));
+    }
+
+    private static Set<Long> distinctIds(List<Long> ids) {
+        Set<Long> distinct = new LinkedHashSet<>(ids);
+        if (distinct.isEmpty() || distinct.size() > MAX_IDS) {
+            throw new BusinessException("Informe entre 1 e " + MAX_IDS + " ids");
+        }
+        return distinct;
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchBook(@PathVariable Long id, @RequestBody @Valid BookPatchRequest request,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Book changes = mapper.toEntity(request);
+        changes.setVersion(ifMatch != null ? BookETag.version(ifMatch) : null);
+        if (!service.patch(id, changes)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        if (changes.getVersion() == null) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.noContent().eTag(BookETag.of(changes.getVersion() + 1)).build();
+    }
+
+    /**
+     * A substituição é um único UPDATE de todas as colunas. Com {@code If-Match} ele é condicionado à versão e
+     * não lê o livro; sem ele é incondicional, nunca responde 412, e o livro é relido só para devolver a versão nova.
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<BookResponse> updateBook(@PathVariable Long id, @RequestBody @Valid BookRequest request,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ifMatch != null ? BookETag.version(ifMatch) : null;
+        Book book = Book.builder()
+                .id(id)
+                .version(expectedVersion)
+                .author(request.getAuthor())
+                .isbn(request.getIsbn())
+                .title(request.getTitle())
+                .build();
+        if (!service.patch(id, book)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        if (expectedVersion != null) {
+            book.setVersion(expectedVersion + 1);
+            return ResponseEntity.ok().eTag(BookETag.of(book)).body(mapper.toResponse(book));
+        }
         return service.getById(id)
-                .map(book -> {
-                    book.setAuthor(request.getAuthor());
-                    book.setIsbn(request.getIsbn());
-                    book.setTitle(request.getTitle());
-                    service.update(book);
-                    return mapper.map(book, BookResponse.class);
-                })
+                .map(updated -> ResponseEntity.ok().eTag(BookETag.of(updated)).body(mapper.toResponse(updated)))
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
+    /**
+     * {@code envelope=lean} troca o {@code Page} serializado pelo Spring, com {@code pageable} e {@code sort}
+     * repetidos, por um {@link BookPageResponse} só com o conteúdo e os totais. Os outros modos de listagem
+     * ({@code ids}, {@code cursor}, {@code count=none}) excluem um ao outro nos mapeamentos; quando vêm juntos, a requisição cai aqui
+     * e é recusada.
+     */
     @GetMapping
+    public ResponseEntity<?> findBook(BookFilter request, Pageable pageRequest,
+                                      @RequestParam(defaultValue = "exact") String count,
+                                      @RequestParam(defaultValue = "page") String envelope,
+                                      @RequestParam(required = false) String ids,
+                                      @RequestParam(required = false) String cursor) {
+        if (ids != null || cursor != null) {
+            throw new BusinessException("Informe só um modo de listagem: ids, cursor ou count=none");
+        }
+        if (!envelope.equals("page") && !envelope.equals("lean")) {
+            throw new BusinessException("Envelope não suportado: " + envelope);
+        }
+        Book filter = mapper.toEntity(request);
+        Page<Book> result;
+        switch (count) {
+            case "exact":
+                result = service.find(filter, pageRequest);
+                break;
+            case "cached":
+                result = service.findWithCachedCount(filter, pageRequest);
+                break;
+            default:
+                throw new BusinessException("Modo de contagem não suportado: " + count);
+        }
+
+        List<BookResponse> list = mapper.toResponse(result.getContent());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(BookETag.of(filter, result));
+        if (envelope.equals("lean")) {
+            return response.body(new BookPageResponse(list, result.getNumber(), result.getSize(),
+                    result.getTotalElements(), result.getTotalPages()));
+        }
+        return response.body(new PageImpl<BookResponse>(list, pageRequest, result.getTotalElements()));
+    }
+
+    @GetMapping(params = {"count=none", "!ids", "!cursor"})
+    @ResponseStatus(HttpStatus.OK)
+    public BookSliceResponse findBookSlice(BookFilter request, Pageable pageRequest) {
+        Slice<Book> result = service.findSlice(mapper.toEntity(request), pageRequest);
+        return new BookSliceResponse(mapper.toResponse(result.getContent()),
+                result.getNumber(), result.getSize(), result.hasNext());
+    }
+
+    /**
+     * Roda com o prazo de {@code library.export.timeout} em vez do prazo padrão das requisições assíncronas.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBooks(BookFilter request,
+                                                             @RequestParam(defaultValue = "ndjson") String format,
+                                                             HttpServletRequest servletRequest) {
+        BookExportFormat exportFormat = BookExportFormat.of(format);
+        Book filter = mapper.toEntity(request);
+        ExportTimeoutInterceptor.mark(servletRequest);
+
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            exportFormat.writeHeader(writer);
+            boolean[] firstRowFlushed = {false};
+            try {
+                service.export(filter, book -> {
+                    try {
+                        exportFormat.write(writer, objectMapper, mapper.toResponse(book));
+                        if (!firstRowFlushed[0]) {
+                            writer.flush();
+                            firstRowFlushed[0] = true;
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .body(body);
+    }
+
+    @GetMapping(params = {"cursor", "!ids", "!count"})
     @ResponseStatus(HttpStatus.OK)
-    public Page<BookResponse> findBook(BookFilter request, Pageable pageRequest) {
-        Book filter = mapper.map(request, Book.class);
-        Page<Book> result = service.find(filter, pageRequest);
+    public BookCursorResponse findBookByCursor(BookFilter request,
+                                               @RequestParam String cursor,
+                                               @RequestParam(defaultValue = "id") String sortBy,
+                                               @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new BusinessException("Tamanho de página deve estar entre 1 e " + MAX_CURSOR_PAGE_SIZE);
+        }
+        BookKeyset after = cursor.isEmpty() ? null : BookKeyset.decode(cursor);
+        String property = after != null ? after.getProperty() : sortBy;
 
-        List<BookResponse> list = result.getContent().stream()
-                .map(entity -> mapper.map(entity, BookResponse.class))
-                .collect(Collectors.toList());
-        return new PageImpl<BookResponse>(list, pageRequest, result.getTotalElements());
+        List<Book> books = service.findAfter(mapper.toEntity(request), property, after, size + 1);
+        String next = null;
+        if (books.size() > size) {
+            books = books.subList(0, size);
+            next = BookKeyset.after(property, books.get(size - 1)).encode();
+        }
+        return new BookCursorResponse(mapper.toResponse(books), next);
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -85,6 +346,12 @@ public class BookController {
         return new ApiErrors(ex.getBindingResult());
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ApiErrors handleOptimisticLockingExceptions(OptimisticLockingFailureException ex) {
+        return new ApiErrors("Livro alterado por outra requisição");
+    }
+
     @ExceptionHandler(BusinessException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ApiErrors handleBusinessExceptions(BusinessException ex) {
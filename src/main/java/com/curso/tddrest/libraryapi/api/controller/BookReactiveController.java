@@ -0,0 +1,107 @@
+package com.curso.tddrest.libraryapi.api.controller;
+
+import com.curso.tddrest.libraryapi.api.etag.BookETag;
+import com.curso.tddrest.libraryapi.api.exception.ApiErrors;
+import com.curso.tddrest.libraryapi.config.ReactiveApiConfig;
+import com.curso.tddrest.libraryapi.exception.BusinessException;
+import com.curso.tddrest.libraryapi.mapper.BookMapper;
+import com.curso.tddrest.libraryapi.model.dto.request.BookFilter;
+import com.curso.tddrest.libraryapi.model.dto.request.BookRequest;
+import com.curso.tddrest.libraryapi.model.dto.response.BookResponse;
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.service.BookReactiveService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+
+/**
+ * API v2 de livros, em WebFlux: cada endpoint devolve {@code Mono}/{@code Flux} sobre R2DBC. A busca em
+ * {@code application/x-ndjson} é escrita livro a livro, pedindo ao banco o próximo só depois de enviar o atual.
+ * Não é um {@code @RestController}: quem o registra é o contexto WebFlux de {@link ReactiveApiConfig}, montado em
+ * {@code /api/v2}, e o Spring MVC não deve mapeá-lo.
+ */
+@ResponseBody
+@RequestMapping("/books")
+@RequiredArgsConstructor
+public class BookReactiveController {
+
+    private final BookReactiveService service;
+    private final BookMapper mapper;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<BookResponse> createBook(@RequestBody @Valid BookRequest request) {
+        return service.save(mapper.toEntity(request)).map(mapper::toResponse);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<BookResponse>> getBookDetails(@PathVariable Long id) {
+        return service.getById(id)
+                .map(book -> ResponseEntity.ok()
+                        .eTag(BookETag.of(book))
+                        .body(mapper.toResponse(book)))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<BookResponse>> updateBook(@PathVariable Long id, @RequestBody @Valid BookRequest request,
+                                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Book book = Book.builder()
+                .id(id)
+                .version(ifMatch != null ? BookETag.version(ifMatch) : null)
+                .author(request.getAuthor())
+                .isbn(request.getIsbn())
+                .title(request.getTitle())
+                .build();
+        return service.update(book)
+                .map(updated -> ResponseEntity.ok()
+                        .eTag(BookETag.of(updated))
+                        .body(mapper.toResponse(updated)))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteBook(@PathVariable Long id) {
+        return service.deleteById(id)
+                .map(deleted -> {
+                    if (!deleted) {
+                        throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+                    }
+                    return ResponseEntity.noContent().<Void>build();
+                });
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<BookResponse> findBook(BookFilter request, Pageable pageRequest) {
+        return service.find(mapper.toEntity(request), pageRequest).map(mapper::toResponse);
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiErrors handleValidationExceptions(WebExchangeBindException ex) {
+        return new ApiErrors(ex.getBindingResult());
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ApiErrors handleOptimisticLockingExceptions(OptimisticLockingFailureException ex) {
+        return new ApiErrors("Livro alterado por outra requisição");
+    }
+
+    @ExceptionHandler(BusinessException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiErrors handleBusinessExceptions(BusinessException ex) {
+        return new ApiErrors(ex);
+    }
+}
@@ -0,0 +1,62 @@
+package com.curso.tddrest.libraryapi.api.etag;
+
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ETags dos livros. O detalhe usa um ETag forte com a versão da linha; as páginas de busca usam um
+ * ETag fraco derivado do filtro, da página pedida, do total e do par id/versão de cada livro retornado.
+ * <p>
+ * Com o ETag no {@code ResponseEntity}, o Spring responde 304 ao {@code If-None-Match} sem serializar
+ * o corpo.
+ */
+public final class BookETag {
+
+    private BookETag() {
+    }
+
+    public static String of(Book book) {
+        return of(book.getVersion());
+    }
+
+    public static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Versão esperada num {@code If-Match}, ou {@code null} para {@code *}. ETags fracos ou que não são
+     * uma versão nunca casam com a linha atual, então respondem 412.
+     */
+    public static Long version(String ifMatch) {
+        String etag = ifMatch.trim();
+        if ("*".equals(etag)) {
+            return null;
+        }
+        if (etag.length() > 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+            try {
+                return Long.valueOf(etag.substring(1, etag.length() - 1));
+            } catch (NumberFormatException e) {
+                // cai no 412 abaixo
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+    }
+
+    public static String of(Book filter, Page<Book> page) {
+        StringBuilder key = new StringBuilder()
+                .append(filter.getTitle()).append('|')
+                .append(filter.getAuthor()).append('|')
+                .append(filter.getIsbn()).append('|')
+                .append(page.getPageable()).append('|')
+                .append(page.getTotalElements());
+        for (Book book : page.getContent()) {
+            key.append('|').append(book.getId()).append(':').append(book.getVersion());
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
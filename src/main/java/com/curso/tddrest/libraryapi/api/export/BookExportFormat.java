@@ -0,0 +1,77 @@
+package com.curso.tddrest.libraryapi.api.export;
+
+import com.curso.tddrest.libraryapi.exception.BusinessException;
+import com.curso.tddrest.libraryapi.model.dto.response.BookResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.Writer;
+
+public enum BookExportFormat {
+    NDJSON(MediaType.parseMediaType("application/x-ndjson")) {
+        @Override
+        public void writeHeader(Writer writer) {
+        }
+
+        @Override
+        public void write(Writer writer, ObjectMapper objectMapper, BookResponse book) throws IOException {
+            writer.write(objectMapper.writeValueAsString(book));
+            writer.write('\n');
+        }
+    },
+    CSV(MediaType.parseMediaType("text/csv;charset=UTF-8")) {
+        @Override
+        public void writeHeader(Writer writer) throws IOException {
+            writer.write("id,title,author,isbn\n");
+        }
+
+        @Override
+        public void write(Writer writer, ObjectMapper objectMapper, BookResponse book) throws IOException {
+            writer.write(String.valueOf(book.getId()));
+            writer.write(',');
+            writeField(writer, book.getTitle());
+            writer.write(',');
+            writeField(writer, book.getAuthor());
+            writer.write(',');
+            writeField(writer, book.getIsbn());
+            writer.write('\n');
+        }
+
+        private void writeField(Writer writer, String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    };
+
+    private final MediaType mediaType;
+
+    BookExportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public abstract void writeHeader(Writer writer) throws IOException;
+
+    public abstract void write(Writer writer, ObjectMapper objectMapper, BookResponse book) throws IOException;
+
+    public static BookExportFormat of(String format) {
+        for (BookExportFormat value : values()) {
+            if (value.name().equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new BusinessException("Formato de exportação não suportado: " + format);
+    }
+}
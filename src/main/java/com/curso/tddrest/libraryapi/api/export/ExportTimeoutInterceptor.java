@@ -0,0 +1,37 @@
+package com.curso.tddrest.libraryapi.api.export;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Prazo próprio para as respostas assíncronas marcadas com {@link #mark(HttpServletRequest)}, como a exportação,
+ * que num catálogo grande passa dos 30 s padrão do Tomcat. As demais continuam com o prazo padrão.
+ * Prazo zero desliga o limite.
+ */
+public class ExportTimeoutInterceptor implements CallableProcessingInterceptor {
+    private static final String EXPORT = ExportTimeoutInterceptor.class.getName() + ".EXPORT";
+
+    private final Duration timeout;
+
+    public ExportTimeoutInterceptor(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public static void mark(HttpServletRequest request) {
+        request.setAttribute(EXPORT, Boolean.TRUE);
+    }
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        if (request instanceof AsyncWebRequest
+                && request.getAttribute(EXPORT, RequestAttributes.SCOPE_REQUEST) != null) {
+            ((AsyncWebRequest) request).setTimeout(timeout.isZero() ? -1L : timeout.toMillis());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.curso.tddrest.libraryapi.api.filter;
+
+import com.curso.tddrest.libraryapi.api.exception.ApiErrors;
+import com.curso.tddrest.libraryapi.concurrent.AdaptiveLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Passa cada requisição pelo {@link AdaptiveLimiter} de leitura ({@code GET}/{@code HEAD}) ou de escrita
+ * (os demais métodos). Acima do limite responde na hora com 503 e {@code Retry-After}, em vez de deixar a
+ * requisição esperando por thread e conexão até o cliente desistir. Respostas assíncronas, como a exportação,
+ * só liberam a vaga quando terminam. As requisições em {@code bulkPaths} (exportação e importação, que duram o
+ * quanto durar a transferência) passam por um limite próprio, de tamanho fixo: não ocupam as vagas das
+ * leituras e escritas comuns nem entram como amostra de latência.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    static final String OVERLOADED = "Servidor sobrecarregado, tente novamente em instantes";
+    private static final UrlPathHelper PATH_HELPER = new UrlPathHelper();
+
+    private final AdaptiveLimiter readLimiter;
+    private final AdaptiveLimiter writeLimiter;
+    private final AdaptiveLimiter bulkLimiter;
+    private final Duration retryAfter;
+    private final ObjectMapper objectMapper;
+    private final Set<String> bulkPaths;
+
+    public ConcurrencyLimitFilter(AdaptiveLimiter readLimiter, AdaptiveLimiter writeLimiter,
+                                  AdaptiveLimiter bulkLimiter, Duration retryAfter, ObjectMapper objectMapper,
+                                  Collection<String> bulkPaths) {
+        this.readLimiter = readLimiter;
+        this.writeLimiter = writeLimiter;
+        this.bulkLimiter = bulkLimiter;
+        this.retryAfter = retryAfter;
+        this.objectMapper = objectMapper;
+        this.bulkPaths = new HashSet<>(bulkPaths);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean bulk = bulkPaths.contains(PATH_HELPER.getPathWithinApplication(request));
+        AdaptiveLimiter limiter = bulk ? bulkLimiter : isRead(request) ? readLimiter : writeLimiter;
+        if (!limiter.tryAcquire()) {
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            if (bulk) {
+                limiter.release();
+            } else {
+                limiter.release(System.nanoTime() - start);
+            }
+        };
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        String method = request.getMethod();
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method);
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.getSeconds())));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), new ApiErrors(OVERLOADED));
+    }
+
+    private static class ReleaseOnComplete implements AsyncListener {
+        private final Runnable release;
+
+        ReleaseOnComplete(Runnable release) {
+            this.release = release;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
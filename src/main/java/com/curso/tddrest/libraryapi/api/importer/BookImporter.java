@@ -0,0 +1,217 @@
+package com.curso.tddrest.libraryapi.api.importer;
+
+import com.curso.tddrest.libraryapi.exception.BusinessException;
+import com.curso.tddrest.libraryapi.mapper.BookMapper;
+import com.curso.tddrest.libraryapi.model.batch.BookBatchResult;
+import com.curso.tddrest.libraryapi.model.dto.request.BookRequest;
+import com.curso.tddrest.libraryapi.model.dto.response.BookImportResponse;
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.service.BookService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Importa livros de um corpo NDJSON ou CSV lendo uma linha por vez. As linhas válidas são agrupadas
+ * em blocos de {@code library.batch.size} e cada bloco vai para {@link BookService#saveAll}, numa
+ * transação própria e com a checagem de ISBN duplicado feita de uma vez para o bloco inteiro.
+ */
+@Component
+public class BookImporter {
+
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    public static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final BookService service;
+    private final BookMapper mapper;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public BookImporter(BookService service, BookMapper mapper, Validator validator, ObjectMapper objectMapper,
+                        @Value("${library.batch.size:50}") int chunkSize) {
+        this.service = service;
+        this.mapper = mapper;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    public BookImportResponse importBooks(InputStream body, MediaType contentType) throws IOException {
+        boolean csv = CSV.isCompatibleWith(contentType);
+        if (!csv && !NDJSON.isCompatibleWith(contentType)) {
+            throw new BusinessException("Formato de importação não suportado: " + contentType);
+        }
+
+        Progress progress = new Progress();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            CsvHeader header = csv ? CsvHeader.read(reader.readLine()) : null;
+            long line = csv ? 1 : 0;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.trim().isEmpty()) {
+                    continue;
+                }
+                BookRequest request;
+                try {
+                    request = csv ? header.parse(text) : objectMapper.readValue(text, BookRequest.class);
+                } catch (JsonProcessingException | IllegalArgumentException e) {
+                    request = null;
+                }
+                if (request == null) {
+                    progress.reject(line, Collections.singletonList("Linha inválida"));
+                    continue;
+                }
+                accept(progress, line, request);
+            }
+        }
+        flush(progress);
+        return progress.toResponse();
+    }
+
+    private void accept(Progress progress, long line, BookRequest request) {
+        Set<ConstraintViolation<BookRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            progress.reject(line, violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.toList()));
+            return;
+        }
+        progress.lines.add(line);
+        progress.chunk.add(mapper.toEntity(request));
+        if (progress.chunk.size() >= chunkSize) {
+            flush(progress);
+        }
+    }
+
+    private void flush(Progress progress) {
+        if (progress.chunk.isEmpty()) {
+            return;
+        }
+        List<BookBatchResult> results = service.saveAll(progress.chunk);
+        for (int i = 0; i < results.size(); i++) {
+            BookBatchResult result = results.get(i);
+            if (result.isCreated()) {
+                progress.accepted++;
+            } else {
+                progress.reject(progress.lines.get(i), Collections.singletonList(result.getError()));
+            }
+        }
+        progress.chunk = new ArrayList<>(chunkSize);
+        progress.lines.clear();
+    }
+
+    private class Progress {
+        private final long start = System.nanoTime();
+        private final List<Long> lines = new ArrayList<>();
+        private final List<BookImportResponse.LineError> errors = new ArrayList<>();
+        private List<Book> chunk = new ArrayList<>(chunkSize);
+        private long accepted;
+        private long rejected;
+
+        void reject(long line, List<String> messages) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BookImportResponse.LineError(line, messages));
+            }
+        }
+
+        BookImportResponse toResponse() {
+            long elapsedNanos = Math.max(1, System.nanoTime() - start);
+            double rowsPerSecond = (accepted + rejected) * 1_000_000_000d / elapsedNanos;
+            return new BookImportResponse(accepted, rejected, elapsedNanos / 1_000_000, rowsPerSecond, errors);
+        }
+    }
+
+    private static class CsvHeader {
+        private final int title;
+        private final int author;
+        private final int isbn;
+
+        private CsvHeader(int title, int author, int isbn) {
+            this.title = title;
+            this.author = author;
+            this.isbn = isbn;
+        }
+
+        static CsvHeader read(String line) {
+            List<String> columns = line == null ? Collections.emptyList() : split(line).stream()
+                    .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                    .collect(Collectors.toList());
+            int title = columns.indexOf("title");
+            int author = columns.indexOf("author");
+            int isbn = columns.indexOf("isbn");
+            if (title < 0 || author < 0 || isbn < 0) {
+                throw new BusinessException("Cabeçalho CSV deve conter as colunas title, author e isbn");
+            }
+            return new CsvHeader(title, author, isbn);
+        }
+
+        BookRequest parse(String line) {
+            List<String> values = split(line);
+            return BookRequest.builder()
+                    .title(value(values, title))
+                    .author(value(values, author))
+                    .isbn(value(values, isbn))
+                    .build();
+        }
+
+        private static String value(List<String> values, int index) {
+            return index < values.size() ? values.get(index) : null;
+        }
+
+        /**
+         * Separa uma linha CSV (RFC 4180) respeitando campos entre aspas e aspas duplicadas.
+         * Campos com quebra de linha não são suportados, já que a leitura é feita linha a linha.
+         */
+        static List<String> split(String line) {
+            List<String> values = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        current.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(current.toString());
+                    current.setLength(0);
+                } else {
+                    current.append(c);
+                }
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("Aspas não fechadas");
+            }
+            values.add(current.toString());
+            return values;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.curso.tddrest.libraryapi.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite de requisições simultâneas ajustado pela latência observada (AIMD): cada requisição que termina dentro
+ * de {@code maxLatency} soma {@code 1/limite} ao limite, e cada uma que passa dele o multiplica por
+ * {@code backoffRatio}, sempre entre {@code minLimit} e {@code maxLimit}. O limite só cresce quando está em uso
+ * (pelo menos metade ocupado), para não inflar enquanto a carga é baixa.
+ * <p>
+ * Expõe por {@code name} o limite ({@code library.limiter.limit}), as requisições em andamento
+ * ({@code library.limiter.inflight}) e as recusadas ({@code library.limiter.rejected}).
+ */
+public class AdaptiveLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long maxLatencyNanos;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+    private volatile double limit;
+
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit, Duration maxLatency,
+                           double backoffRatio, MeterRegistry registry) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limites inválidos para " + name + ": exige 1 <= mínimo <= inicial <= máximo");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio deve ficar entre 0 e 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxLatencyNanos = maxLatency.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = initialLimit;
+        Gauge.builder("library.limiter.limit", this, AdaptiveLimiter::getLimit)
+                .tag("name", name)
+                .register(registry);
+        Gauge.builder("library.limiter.inflight", inFlight, AtomicInteger::get)
+                .tag("name", name)
+                .register(registry);
+        this.rejected = Counter.builder("library.limiter.rejected")
+                .tag("name", name)
+                .register(registry);
+    }
+
+    /**
+     * Limite que não se ajusta: com mínimo e máximo iguais, a latência das requisições não o altera.
+     */
+    public static AdaptiveLimiter fixed(String name, int limit, MeterRegistry registry) {
+        return new AdaptiveLimiter(name, limit, limit, limit, Duration.ZERO, 0.5, registry);
+    }
+
+    /**
+     * Reserva uma vaga, ou devolve {@code false} sem esperar se o limite já foi atingido. Toda reserva bem-sucedida
+     * precisa de um {@link #release(long)} ou {@link #release()}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera a vaga sem ajustar o limite, para requisições cuja duração mede o volume transferido, e não a saúde
+     * do serviço.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public void release(long latencyNanos) {
+        int current = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (latencyNanos > maxLatencyNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (current * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
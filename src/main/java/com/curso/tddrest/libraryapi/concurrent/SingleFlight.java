@@ -0,0 +1,72 @@
+package com.curso.tddrest.libraryapi.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Junta cargas concorrentes da mesma chave: a primeira thread executa o {@code loader} e as que chegam enquanto
+ * ele roda esperam e recebem o mesmo resultado (ou a mesma exceção), sem repetir a consulta. Nada é guardado
+ * depois que a carga termina; quem chega depois executa de novo.
+ * <p>
+ * Conta em {@code library.singleflight.loads} as cargas executadas ({@code result=executed}) e as aproveitadas
+ * de outra thread ({@code result=coalesced}), por {@code name}.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executed;
+    private final Counter coalesced;
+
+    public SingleFlight(String name, MeterRegistry registry) {
+        this.executed = Counter.builder("library.singleflight.loads")
+                .tag("name", name)
+                .tag("result", "executed")
+                .register(registry);
+        this.coalesced = Counter.builder("library.singleflight.loads")
+                .tag("name", name)
+                .tag("result", "coalesced")
+                .register(registry);
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, load);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+
+        executed.increment();
+        try {
+            V value = loader.get();
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.curso.tddrest.libraryapi.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cache de livros por id. Tamanho, TTL e estatísticas vêm de {@code spring.cache.caffeine.spec}
+ * e as métricas de hit/miss/eviction ficam em {@code /actuator/metrics/cache.gets} e afins.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String BOOKS = "books";
+}
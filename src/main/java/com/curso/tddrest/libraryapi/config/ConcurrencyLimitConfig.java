@@ -0,0 +1,52 @@
+package com.curso.tddrest.libraryapi.config;
+
+import com.curso.tddrest.libraryapi.api.filter.ConcurrencyLimitFilter;
+import com.curso.tddrest.libraryapi.concurrent.AdaptiveLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.Arrays;
+
+/**
+ * Limite adaptativo de concorrência na frente de {@code /api/books}, com limites separados para leitura e
+ * escrita em {@code library.limiter.read.*} e {@code library.limiter.write.*}. Exportação e importação têm um
+ * limite fixo à parte, {@code library.limiter.bulk.limit}. Desligue com {@code library.limiter.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.limiter.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(Environment environment,
+                                                                                 MeterRegistry registry,
+                                                                                 ObjectMapper objectMapper) {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+                limiter("read", environment, registry),
+                limiter("write", environment, registry),
+                AdaptiveLimiter.fixed("bulk",
+                        environment.getRequiredProperty("library.limiter.bulk.limit", Integer.class), registry),
+                DurationStyle.detectAndParse(environment.getProperty("library.limiter.retry-after", "1s")),
+                objectMapper,
+                Arrays.asList("/api/books/export", "/api/books/import"));
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/books", "/api/books/*");
+        return registration;
+    }
+
+    private static AdaptiveLimiter limiter(String name, Environment environment, MeterRegistry registry) {
+        String prefix = "library.limiter." + name + ".";
+        return new AdaptiveLimiter(name,
+                environment.getRequiredProperty(prefix + "initial-limit", Integer.class),
+                environment.getRequiredProperty(prefix + "min-limit", Integer.class),
+                environment.getRequiredProperty(prefix + "max-limit", Integer.class),
+                DurationStyle.detectAndParse(environment.getRequiredProperty(prefix + "max-latency")),
+                environment.getProperty("library.limiter.backoff-ratio", Double.class, 0.9),
+                registry);
+    }
+}
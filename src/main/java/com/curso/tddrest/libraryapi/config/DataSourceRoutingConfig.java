@@ -0,0 +1,78 @@
+package com.curso.tddrest.libraryapi.config;
+
+import com.curso.tddrest.libraryapi.datasource.ReadOnlyTransactions;
+import com.curso.tddrest.libraryapi.datasource.ReadWriteRoutingDataSource;
+import com.curso.tddrest.libraryapi.datasource.ReplicaLagFallback;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Com {@code library.datasource.replica.urls} preenchido, as transações {@code readOnly} leem das réplicas e o
+ * resto continua no primário de {@code spring.datasource.*}. Cada réplica tem o seu pool Hikari, com usuário e
+ * senha do primário e tamanho e timeout de {@code library.datasource.replica.*}; {@code max-lag} é o atraso
+ * tolerado, durante o qual um livro alterado é lido do primário. Sem réplicas o Boot cria o {@code DataSource} de
+ * sempre e o {@link ReplicaLagFallback} fica desligado.
+ */
+@Configuration
+public class DataSourceRoutingConfig {
+
+    private static final String REPLICA_PREFIX = "library.datasource.replica.";
+
+    @Bean
+    @ConditionalOnProperty(REPLICA_PREFIX + "urls")
+    public ReadWriteRoutingDataSource dataSource(DataSourceProperties properties, Environment environment,
+                                                 ObjectProvider<MeterRegistry> registry) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+        registry.ifAvailable(primary::setMetricRegistry);
+
+        List<DataSource> replicas = new ArrayList<>();
+        String[] urls = environment.getRequiredProperty(REPLICA_PREFIX + "urls", String[].class);
+        for (int i = 0; i < urls.length; i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(urls[i].trim());
+            replica.setUsername(properties.determineUsername());
+            replica.setPassword(properties.determinePassword());
+            replica.setReadOnly(true);
+            replica.setMaximumPoolSize(environment.getProperty(REPLICA_PREFIX + "maximum-pool-size", Integer.class, 10));
+            replica.setConnectionTimeout(DurationStyle.detectAndParse(
+                    environment.getProperty(REPLICA_PREFIX + "connection-timeout", "1s")).toMillis());
+            registry.ifAvailable(replica::setMetricRegistry);
+            replicas.add(replica);
+        }
+        return new ReadWriteRoutingDataSource(primary, replicas);
+    }
+
+    @Bean
+    public ReplicaLagFallback replicaLagFallback(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                                 Environment environment) throws SQLException {
+        return dataSource.isWrapperFor(ReadWriteRoutingDataSource.class)
+                ? new ReplicaLagFallback(transactionManager, DurationStyle.detectAndParse(
+                        environment.getProperty(REPLICA_PREFIX + "max-lag", "5s")))
+                : ReplicaLagFallback.disabled();
+    }
+
+    @Bean
+    public ReadOnlyTransactions readOnlyTransactions(PlatformTransactionManager transactionManager) {
+        return new ReadOnlyTransactions(transactionManager);
+    }
+}
@@ -0,0 +1,27 @@
+package com.curso.tddrest.libraryapi.config;
+
+import com.curso.tddrest.libraryapi.api.export.ExportTimeoutInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Prazo da exportação em {@code library.export.timeout}, independente do {@code spring.mvc.async.request-timeout}.
+ */
+@Configuration
+public class ExportConfig implements WebMvcConfigurer {
+
+    private final Duration timeout;
+
+    public ExportConfig(@Value("${library.export.timeout:1h}") Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new ExportTimeoutInterceptor(timeout));
+    }
+}
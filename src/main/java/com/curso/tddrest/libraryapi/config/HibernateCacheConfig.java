@@ -0,0 +1,37 @@
+package com.curso.tddrest.libraryapi.config;
+
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache de segundo nível do Hibernate em JCache sobre Ehcache, com as regiões limitadas de
+ * {@code hibernate-ehcache.xml}. Cada contexto Spring tem o seu {@code CacheManager}: o provedor JCache guarda um
+ * por URI na JVM, e contextos com bancos diferentes (como nos testes) acabariam dividindo as mesmas entidades.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    private static final AtomicInteger MANAGERS = new AtomicInteger();
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+        return provider.getCacheManager(URI.create("urn:library:hibernate-cache:" + MANAGERS.incrementAndGet()),
+                new XmlConfiguration(HibernateCacheConfig.class.getResource("/hibernate-ehcache.xml")));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
@@ -0,0 +1,77 @@
+package com.curso.tddrest.libraryapi.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+
+/**
+ * Acesso R2DBC usado pela API v2. Abre o mesmo banco H2 do {@code DataSource} JDBC (a URL, inclusive o nome
+ * único gerado pelo Boot, vem de {@link DataSourceProperties}), então as duas APIs enxergam as mesmas tabelas,
+ * criadas pelo Hibernate. As conexões vêm de um {@link ConnectionPool} ({@code library.r2dbc.pool.*}), com
+ * métricas em {@code r2dbc.pool.*}. O pool não vira bean porque o Boot desliga o {@code DataSource} JDBC
+ * quando encontra uma {@link ConnectionFactory}, e não há {@code R2dbcTransactionManager}, que tiraria o lugar
+ * do gerenciador JPA: cada operação da v2 é um único comando.
+ */
+@Configuration
+public class R2dbcConfig implements DisposableBean {
+
+    private static final String H2_PREFIX = "jdbc:h2:";
+
+    private final int initialSize;
+    private final int maxSize;
+    private final Duration maxIdleTime;
+
+    private ConnectionPool pool;
+
+    public R2dbcConfig(@Value("${library.r2dbc.pool.initial-size:2}") int initialSize,
+                       @Value("${library.r2dbc.pool.max-size:10}") int maxSize,
+                       @Value("${library.r2dbc.pool.max-idle-time:30m}") Duration maxIdleTime) {
+        this.initialSize = initialSize;
+        this.maxSize = maxSize;
+        this.maxIdleTime = maxIdleTime;
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(DataSourceProperties properties, MeterRegistry registry) {
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory(properties))
+                .name("v2")
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .maxIdleTime(maxIdleTime)
+                .build());
+        new ConnectionPoolMetrics(pool, "v2", Tags.empty()).bindTo(registry);
+        return DatabaseClient.create(pool);
+    }
+
+    @Override
+    public void destroy() {
+        if (pool != null) {
+            pool.dispose();
+        }
+    }
+
+    private static ConnectionFactory connectionFactory(DataSourceProperties properties) {
+        String url = properties.determineUrl();
+        if (url == null || !url.startsWith(H2_PREFIX)) {
+            throw new IllegalStateException("A API v2 só suporta H2; URL configurada: " + url);
+        }
+        return new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                .url(url.substring(H2_PREFIX.length()))
+                .username(properties.determineUsername())
+                .password(properties.determinePassword())
+                .build());
+    }
+}
@@ -0,0 +1,63 @@
+package com.curso.tddrest.libraryapi.config;
+
+import com.curso.tddrest.libraryapi.api.controller.BookReactiveController;
+import com.curso.tddrest.libraryapi.mapper.BookMapper;
+import com.curso.tddrest.libraryapi.service.BookReactiveService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ServletHttpHandlerAdapter;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+
+/**
+ * Serve a API v2 com WebFlux no mesmo Tomcat do Spring MVC. O {@link BookReactiveController} vive num contexto
+ * próprio com {@code @EnableWebFlux}, que o Spring MVC não enxerga, e o {@link HttpHandler} desse contexto atende
+ * {@code /api/v2/*} pelo {@link ServletHttpHandlerAdapter}, que lê e escreve com a E/S não bloqueante do
+ * Servlet 3.1: enquanto espera o banco ou um cliente lento, a requisição não ocupa thread do Tomcat.
+ */
+@Configuration
+public class ReactiveApiConfig implements DisposableBean {
+
+    public static final String PATH = "/api/v2";
+
+    private ConfigurableApplicationContext context;
+
+    @Bean
+    public ServletRegistrationBean<ServletHttpHandlerAdapter> reactiveApiServlet(ApplicationContext application) {
+        context = createContext(application);
+        HttpHandler handler = WebHttpHandlerBuilder.applicationContext(context).build();
+        ServletRegistrationBean<ServletHttpHandlerAdapter> registration =
+                new ServletRegistrationBean<>(new ServletHttpHandlerAdapter(handler), PATH + "/*");
+        registration.setName("reactiveApi");
+        registration.setAsyncSupported(true);
+        registration.setLoadOnStartup(1);
+        return registration;
+    }
+
+    @Override
+    public void destroy() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    /**
+     * Contexto WebFlux da v2. Não tem pai: o {@code @EnableWebFlux} recusa subir onde enxergue a configuração do
+     * Spring MVC, então o contexto recebe da aplicação só o que o controller e os codecs usam.
+     */
+    public static ConfigurableApplicationContext createContext(ApplicationContext application) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.registerBean(ObjectMapper.class, () -> application.getBean(ObjectMapper.class));
+        context.registerBean(BookReactiveService.class, () -> application.getBean(BookReactiveService.class));
+        context.registerBean(BookMapper.class, () -> application.getBean(BookMapper.class));
+        context.register(ReactiveWebFluxConfig.class, BookReactiveController.class);
+        context.refresh();
+        return context;
+    }
+}
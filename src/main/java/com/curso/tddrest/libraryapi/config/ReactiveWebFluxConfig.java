@@ -0,0 +1,36 @@
+package com.curso.tddrest.libraryapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.config.EnableWebFlux;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+
+/**
+ * WebFlux do contexto da API v2, registrado só por {@link ReactiveApiConfig#createContext}. Não tem
+ * {@code @Configuration} de propósito: se a varredura da aplicação o achasse, os beans do WebFlux brigariam
+ * pelos nomes dos do Spring MVC. Usa o {@link ObjectMapper} da aplicação e resolve {@code Pageable} como na v1.
+ */
+@EnableWebFlux
+class ReactiveWebFluxConfig implements WebFluxConfigurer {
+
+    private final ObjectMapper objectMapper;
+
+    ReactiveWebFluxConfig(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        configurer.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+        configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+    }
+
+    @Override
+    public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+        configurer.addCustomResolver(new ReactivePageableHandlerMethodArgumentResolver());
+    }
+}
@@ -0,0 +1,36 @@
+package com.curso.tddrest.libraryapi.datasource;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Transação {@code readOnly} aberta por código, só em volta do trecho que vai ao banco. Serve às leituras
+ * coalescidas por {@code SingleFlight}: com {@code @Transactional} no método, cada thread que só espera o resultado
+ * de outra já teria aberto a sua transação e pego uma conexão do pool. {@link #none()} executa sem transação,
+ * para testes com repositório simulado.
+ */
+public class ReadOnlyTransactions {
+
+    private final TransactionOperations operations;
+
+    public ReadOnlyTransactions(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        this.operations = template;
+    }
+
+    private ReadOnlyTransactions(TransactionOperations operations) {
+        this.operations = operations;
+    }
+
+    public static ReadOnlyTransactions none() {
+        return new ReadOnlyTransactions(TransactionOperations.withoutTransaction());
+    }
+
+    public <T> T execute(Supplier<T> read) {
+        return operations.execute(status -> read.get());
+    }
+}
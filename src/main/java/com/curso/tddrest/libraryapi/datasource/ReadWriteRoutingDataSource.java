@@ -0,0 +1,83 @@
+package com.curso.tddrest.libraryapi.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Entrega conexões das réplicas, em rodízio, para transações {@code readOnly} e do primário para o resto; se
+ * nenhuma réplica entrega conexão, a leitura vai para o primário. A conexão física só é pedida no primeiro
+ * comando ({@link LazyConnectionDataSourceProxy}), quando a transação já está marcada como leitura ou escrita.
+ * <p>
+ * Fechar este {@code DataSource} fecha os pools do primário e das réplicas.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private final List<DataSource> targets = new ArrayList<>();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        super(new Router(primary, replicas));
+        targets.add(primary);
+        targets.addAll(replicas);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DataSource target : targets) {
+            if (target instanceof Closeable) {
+                ((Closeable) target).close();
+            }
+        }
+    }
+
+    private static class Router extends AbstractDataSource {
+        private final DataSource primary;
+        private final List<DataSource> replicas;
+        private final AtomicInteger next = new AtomicInteger();
+
+        Router(DataSource primary, List<DataSource> replicas) {
+            this.primary = primary;
+            this.replicas = replicas;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return route(DataSource::getConnection);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return route(dataSource -> dataSource.getConnection(username, password));
+        }
+
+        private Connection route(ConnectionSource source) throws SQLException {
+            if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                for (int attempt = 0; attempt < replicas.size(); attempt++) {
+                    DataSource replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+                    try {
+                        return source.get(replica);
+                    } catch (SQLException e) {
+                        log.warn("Réplica indisponível, tentando a próxima: {}", e.getMessage());
+                    }
+                }
+            }
+            return source.get(primary);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+}
@@ -0,0 +1,65 @@
+package com.curso.tddrest.libraryapi.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Com réplicas, uma leitura pode estar atrasada em relação ao primário: o livro acabou de ser criado e ainda não
+ * aparece, ou acabou de ser alterado e a réplica devolve a versão anterior. {@link #fromPrimary(Supplier)} repete
+ * a leitura numa transação nova de escrita, que o {@link ReadWriteRoutingDataSource} manda para o primário, e
+ * {@link #written(Long)} marca um livro alterado para que {@link #isRecentlyWritten(Long)} o aponte durante
+ * {@code maxLag}, o atraso tolerado das réplicas. Sem réplicas fica desligado.
+ */
+public class ReplicaLagFallback {
+
+    private static final ReplicaLagFallback DISABLED = new ReplicaLagFallback();
+    private static final int MAX_TRACKED_WRITES = 100_000;
+
+    private final TransactionTemplate primary;
+    private final Cache<Long, Boolean> recentWrites;
+
+    public ReplicaLagFallback(PlatformTransactionManager transactionManager, Duration maxLag) {
+        this.primary = new TransactionTemplate(transactionManager);
+        this.primary.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.recentWrites = Caffeine.newBuilder()
+                .expireAfterWrite(maxLag)
+                .maximumSize(MAX_TRACKED_WRITES)
+                .build();
+    }
+
+    private ReplicaLagFallback() {
+        this.primary = null;
+        this.recentWrites = null;
+    }
+
+    public static ReplicaLagFallback disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return primary != null;
+    }
+
+    public <T> T fromPrimary(Supplier<T> read) {
+        if (primary == null) {
+            throw new IllegalStateException("Leitura no primário sem réplicas configuradas");
+        }
+        return primary.execute(status -> read.get());
+    }
+
+    public void written(Long id) {
+        if (recentWrites != null) {
+            recentWrites.put(id, Boolean.TRUE);
+        }
+    }
+
+    public boolean isRecentlyWritten(Long id) {
+        return recentWrites != null && recentWrites.getIfPresent(id) != null;
+    }
+}
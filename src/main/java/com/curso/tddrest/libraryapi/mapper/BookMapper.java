@@ -0,0 +1,21 @@
+package com.curso.tddrest.libraryapi.mapper;
+
+import com.curso.tddrest.libraryapi.model.dto.request.BookFilter;
+import com.curso.tddrest.libraryapi.model.dto.request.BookPatchRequest;
+import com.curso.tddrest.libraryapi.model.dto.request.BookRequest;
+import com.curso.tddrest.libraryapi.model.dto.response.BookResponse;
+import com.curso.tddrest.libraryapi.model.entity.Book;
+
+import java.util.List;
+
+public interface BookMapper {
+    Book toEntity(BookRequest request);
+
+    Book toEntity(BookFilter filter);
+
+    Book toEntity(BookPatchRequest request);
+
+    BookResponse toResponse(Book book);
+
+    List<BookResponse> toResponse(List<Book> books);
+}
@@ -0,0 +1,72 @@
+package com.curso.tddrest.libraryapi.mapper.impl;
+
+import com.curso.tddrest.libraryapi.mapper.BookMapper;
+import com.curso.tddrest.libraryapi.model.dto.request.BookFilter;
+import com.curso.tddrest.libraryapi.model.dto.request.BookPatchRequest;
+import com.curso.tddrest.libraryapi.model.dto.request.BookRequest;
+import com.curso.tddrest.libraryapi.model.dto.response.BookResponse;
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mapeamento explícito entre DTOs e entidade, sem reflexão nem lookup de type maps por chamada.
+ */
+@Component
+public class BookMapperImpl implements BookMapper {
+
+    @Override
+    public Book toEntity(BookRequest request) {
+        if (request == null) {
+            return null;
+        }
+        return Book.builder()
+                .author(request.getAuthor())
+                .title(request.getTitle())
+                .isbn(request.getIsbn())
+                .build();
+    }
+
+    @Override
+    public Book toEntity(BookFilter filter) {
+        if (filter == null) {
+            return null;
+        }
+        return Book.builder()
+                .author(filter.getAuthor())
+                .title(filter.getTitle())
+                .isbn(filter.getIsbn())
+                .build();
+    }
+
+    @Override
+    public Book toEntity(BookPatchRequest request) {
+        if (request == null) {
+            return null;
+        }
+        return Book.builder()
+                .author(request.getAuthor())
+                .title(request.getTitle())
+                .isbn(request.getIsbn())
+                .build();
+    }
+
+    @Override
+    public BookResponse toResponse(Book book) {
+        if (book == null) {
+            return null;
+        }
+        return new BookResponse(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getVersion());
+    }
+
+    @Override
+    public List<BookResponse> toResponse(List<Book> books) {
+        List<BookResponse> responses = new ArrayList<>(books.size());
+        for (Book book : books) {
+            responses.add(toResponse(book));
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,71 @@
+package com.curso.tddrest.libraryapi.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Timers por método do {@code BookService} ({@code library.service}) e do {@code BookRepository}
+ * ({@code library.repository}), com as tags {@code method} e {@code exception}. O count de cada timer
+ * é o contador de chamadas da consulta.
+ * <p>
+ * Métodos que devolvem {@code Stream} medem só a abertura do cursor, não o consumo.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class LayerMetricsAspect {
+
+    private final MeterRegistry registry;
+    private final Map<Method, String> methodTags = new ConcurrentHashMap<>();
+
+    @Around("target(com.curso.tddrest.libraryapi.service.BookService)")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("library.service", joinPoint);
+    }
+
+    @Around("target(com.curso.tddrest.libraryapi.repository.BookRepository)")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("library.repository", joinPoint);
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(name)
+                    .tag("method", methodTag(((MethodSignature) joinPoint.getSignature()).getMethod()))
+                    .tag("exception", exception)
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Nome com os tipos dos parâmetros, para separar sobrecargas como {@code findAll(Example,Pageable)}
+     * de {@code findAll(Pageable)}.
+     */
+    private String methodTag(Method method) {
+        return methodTags.computeIfAbsent(method, m -> {
+            StringJoiner tag = new StringJoiner(",", m.getName() + "(", ")");
+            for (Class<?> type : m.getParameterTypes()) {
+                tag.add(type.getSimpleName());
+            }
+            return tag.toString();
+        });
+    }
+}
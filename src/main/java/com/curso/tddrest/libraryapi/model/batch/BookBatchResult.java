@@ -0,0 +1,24 @@
+package com.curso.tddrest.libraryapi.model.batch;
+
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BookBatchResult {
+    private Book book;
+    private String error;
+
+    public static BookBatchResult created(Book book) {
+        return new BookBatchResult(book, null);
+    }
+
+    public static BookBatchResult rejected(Book book, String error) {
+        return new BookBatchResult(book, error);
+    }
+
+    public boolean isCreated() {
+        return error == null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.curso.tddrest.libraryapi.model.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Size;
+
+/**
+ * Documento parcial do PATCH: campos ausentes (nulos) não são alterados.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookPatchRequest {
+
+    @Size(min = 1, message = "não deve estar vazio")
+    private String author;
+
+    @Size(min = 1, message = "não deve estar vazio")
+    private String title;
+
+    @Size(min = 1, message = "não deve estar vazio")
+    private String isbn;
+}
@@ -0,0 +1,23 @@
+package com.curso.tddrest.libraryapi.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookBatchItemResponse {
+    private int index;
+    private Status status;
+    private BookResponse book;
+    private List<String> errors;
+
+    public enum Status {
+        CREATED, REJECTED
+    }
+}
@@ -0,0 +1,18 @@
+package com.curso.tddrest.libraryapi.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookBatchResponse {
+    private int created;
+    private int rejected;
+    private List<BookBatchItemResponse> items;
+}
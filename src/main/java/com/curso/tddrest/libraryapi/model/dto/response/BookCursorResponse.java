@@ -0,0 +1,17 @@
+package com.curso.tddrest.libraryapi.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookCursorResponse {
+    private List<BookResponse> content;
+    private String next;
+}
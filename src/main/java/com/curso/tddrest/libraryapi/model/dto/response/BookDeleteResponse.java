@@ -0,0 +1,15 @@
+package com.curso.tddrest.libraryapi.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookDeleteResponse {
+    private int requested;
+    private int deleted;
+}
@@ -0,0 +1,28 @@
+package com.curso.tddrest.libraryapi.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookImportResponse {
+    private long accepted;
+    private long rejected;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private List<LineError> errors;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class LineError {
+        private long line;
+        private List<String> errors;
+    }
+}
@@ -14,4 +14,5 @@ public class BookResponse {
     private String title;
     private String author;
     private String isbn;
+    private Long version;
 }
@@ -0,0 +1,19 @@
+package com.curso.tddrest.libraryapi.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookSliceResponse {
+    private List<BookResponse> content;
+    private int number;
+    private int size;
+    private boolean hasNext;
+}
@@ -1,6 +1,8 @@
 package com.curso.tddrest.libraryapi.model.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
@@ -9,11 +11,21 @@ import javax.persistence.*;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table
+@Table(indexes = {
+        @Index(name = "ix_book_title_id", columnList = "title, id"),
+        @Index(name = "ix_book_author_id", columnList = "author, id"),
+        @Index(name = Book.ISBN_INDEX, columnList = "isbn", unique = true)
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Book.CACHE_REGION)
 public class Book {
 
+    public static final String ISBN_INDEX = "ux_book_isbn";
+    public static final String CACHE_REGION = "book";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     @Setter(AccessLevel.NONE)
     private Long id;
 
@@ -25,4 +37,7 @@ public class Book {
 
     @Column
     private String isbn;
+
+    @Version
+    private Long version;
 }
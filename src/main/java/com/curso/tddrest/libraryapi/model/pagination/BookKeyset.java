@@ -0,0 +1,67 @@
+package com.curso.tddrest.libraryapi.model.pagination;
+
+import com.curso.tddrest.libraryapi.exception.BusinessException;
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Posição de uma paginação por cursor: a propriedade ordenada, o valor dela no último livro
+ * entregue e o id desse livro, que desempata valores repetidos.
+ */
+@Data
+@AllArgsConstructor
+public class BookKeyset {
+    public static final List<String> SORTABLE = Arrays.asList("id", "title", "author", "isbn");
+
+    private static final String SEPARATOR = "|";
+
+    private String property;
+    private Long id;
+    private String value;
+
+    public static BookKeyset after(String property, Book book) {
+        String value;
+        switch (property) {
+            case "title":
+                value = book.getTitle();
+                break;
+            case "author":
+                value = book.getAuthor();
+                break;
+            case "isbn":
+                value = book.getIsbn();
+                break;
+            default:
+                value = null;
+        }
+        return new BookKeyset(property, book.getId(), value);
+    }
+
+    public static void checkSortable(String property) {
+        if (!SORTABLE.contains(property)) {
+            throw new BusinessException("Ordenação não suportada: " + property);
+        }
+    }
+
+    public String encode() {
+        String raw = property + SEPARATOR + id + SEPARATOR + (value == null ? "" : value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookKeyset decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            checkSortable(parts[0]);
+            return new BookKeyset(parts[0], Long.valueOf(parts[1]), parts[2]);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | BusinessException e) {
+            throw new BusinessException("Cursor inválido");
+        }
+    }
+}
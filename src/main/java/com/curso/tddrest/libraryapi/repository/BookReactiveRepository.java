@@ -0,0 +1,140 @@
+package com.curso.tddrest.libraryapi.repository;
+
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.model.pagination.BookKeyset;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Acesso não bloqueante à tabela de livros via R2DBC, para a API v2. Usa as mesmas colunas, sequência e
+ * índice único de ISBN mapeados em {@link Book}; o incremento de versão segue o {@code @Version} do JPA.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookReactiveRepository {
+
+    private static final String COLUMNS = "id, title, author, isbn, version";
+
+    private final DatabaseClient client;
+
+    public Mono<Book> findById(Long id) {
+        return client.sql("select " + COLUMNS + " from book where id = :id")
+                .bind("id", id)
+                .map(BookReactiveRepository::toBook)
+                .one();
+    }
+
+    /**
+     * Insere com um id da {@code book_seq}. O Hibernate reserva blocos de 50 a partir do valor que lê da
+     * sequência, e cada valor lido aqui fica fora dos blocos dele, então os dois podem gravar na mesma tabela.
+     */
+    public Mono<Book> insert(Book book) {
+        return client.sql("select next value for book_seq")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .flatMap(id -> client.sql("insert into book (" + COLUMNS + ") values (:id, :title, :author, :isbn, 0)")
+                        .bind("id", id)
+                        .bind("title", book.getTitle())
+                        .bind("author", book.getAuthor())
+                        .bind("isbn", book.getIsbn())
+                        .fetch()
+                        .rowsUpdated()
+                        .thenReturn(Book.builder()
+                                .id(id)
+                                .title(book.getTitle())
+                                .author(book.getAuthor())
+                                .isbn(book.getIsbn())
+                                .version(0L)
+                                .build()));
+    }
+
+    /**
+     * Substitui título, autor e ISBN e incrementa a versão; com versão em {@code book}, só altera se a linha
+     * ainda estiver nela. Retorna a quantidade de linhas alteradas.
+     */
+    public Mono<Integer> update(Book book) {
+        String sql = "update book set title = :title, author = :author, isbn = :isbn, version = version + 1 where id = :id";
+        if (book.getVersion() != null) {
+            sql += " and version = :version";
+        }
+        DatabaseClient.GenericExecuteSpec spec = client.sql(sql)
+                .bind("id", book.getId())
+                .bind("title", book.getTitle())
+                .bind("author", book.getAuthor())
+                .bind("isbn", book.getIsbn());
+        if (book.getVersion() != null) {
+            spec = spec.bind("version", book.getVersion());
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    public Mono<Integer> deleteById(Long id) {
+        return client.sql("delete from book where id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Livros que contêm os termos não nulos de {@code filter} (sem diferenciar maiúsculas), na ordem da
+     * página. A ordenação aceita as mesmas propriedades do cursor e sempre desempata pelo id. As linhas são
+     * emitidas conforme o assinante pede.
+     */
+    public Flux<Book> findMatching(Book filter, Pageable pageRequest) {
+        Map<String, String> terms = new LinkedHashMap<>();
+        terms.put("title", filter.getTitle());
+        terms.put("author", filter.getAuthor());
+        terms.put("isbn", filter.getIsbn());
+
+        StringJoiner where = new StringJoiner(" and ", " where ", "").setEmptyValue("");
+        terms.forEach((column, term) -> {
+            if (term != null) {
+                where.add("lower(" + column + ") like :" + column + " escape '" + EscapeCharacter.DEFAULT.getEscapeCharacter() + "'");
+            }
+        });
+
+        StringJoiner orderBy = new StringJoiner(", ", " order by ", "");
+        for (Sort.Order order : pageRequest.getSort()) {
+            BookKeyset.checkSortable(order.getProperty());
+            if (!order.getProperty().equals("id")) {
+                orderBy.add(order.getProperty() + " " + order.getDirection().name());
+            }
+        }
+        Sort.Order byId = pageRequest.getSort().getOrderFor("id");
+        orderBy.add("id " + (byId != null ? byId.getDirection().name() : "ASC"));
+
+        DatabaseClient.GenericExecuteSpec spec = client.sql("select " + COLUMNS + " from book" + where + orderBy
+                + " limit :limit offset :offset")
+                .bind("limit", pageRequest.getPageSize())
+                .bind("offset", pageRequest.getOffset());
+        for (Map.Entry<String, String> term : terms.entrySet()) {
+            if (term.getValue() != null) {
+                spec = spec.bind(term.getKey(),
+                        "%" + EscapeCharacter.DEFAULT.escape(term.getValue().toLowerCase(Locale.ROOT)) + "%");
+            }
+        }
+        return spec.map(BookReactiveRepository::toBook).all();
+    }
+
+    private static Book toBook(Row row) {
+        return Book.builder()
+                .id(row.get("id", Long.class))
+                .title(row.get("title", String.class))
+                .author(row.get("author", String.class))
+                .isbn(row.get("isbn", String.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+}
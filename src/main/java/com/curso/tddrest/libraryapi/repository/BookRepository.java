@@ -1,10 +1,50 @@
 package com.curso.tddrest.libraryapi.repository;
 
 import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.search.IndexedBook;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
+    String QUERY_CACHE_REGION = "book-queries";
+
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = QUERY_CACHE_REGION)})
     boolean existsByIsbn(String isbn);
+
+    /**
+     * A busca por Example de {@code BookService.find}, com a página no cache de consultas. O {@code count} da
+     * página não recebe as dicas no Spring Data 2.4 e vai ao banco quando a página vem cheia.
+     */
+    @Override
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = QUERY_CACHE_REGION)})
+    <S extends Book> Page<S> findAll(Example<S> example, Pageable pageable);
+
+    @Query("select b.isbn from Book b where b.isbn in :isbns")
+    Set<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.curso.tddrest.libraryapi.search.IndexedBook(b.id, b.title, b.author, b.isbn) from Book b")
+    Stream<IndexedBook> streamIndexedBooks();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select b.isbn from Book b")
+    Stream<String> streamIsbns();
 }
@@ -0,0 +1,28 @@
+package com.curso.tddrest.libraryapi.repository;
+
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.model.pagination.BookKeyset;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface BookRepositoryCustom {
+    void insertAll(List<Book> books);
+
+    int patch(Long id, Book changes);
+
+    int deleteBookById(Long id);
+
+    int deleteBooksByIds(Collection<Long> ids);
+
+    List<Book> findAfter(Book filter, String property, BookKeyset after, int limit);
+
+    Slice<Book> findSlice(Book filter, Pageable pageable);
+
+    long countMatching(Book filter);
+
+    Stream<Book> streamMatching(Book filter);
+}
@@ -0,0 +1,268 @@
+package com.curso.tddrest.libraryapi.repository;
+
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.model.pagination.BookKeyset;
+import org.hibernate.Cache;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${library.batch.size:50}")
+    private int batchSize;
+
+    @Value("${library.export.fetch-size:500}")
+    private int exportFetchSize;
+
+    /**
+     * Persiste os livros em lotes de {@code library.batch.size}, com flush e clear a cada lote para que o
+     * Hibernate envie um único batch JDBC por lote e o contexto de persistência não cresça com a carga.
+     */
+    @Override
+    @Transactional
+    public void insertAll(List<Book> books) {
+        for (int i = 0; i < books.size(); i++) {
+            entityManager.persist(books.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Um único {@code UPDATE book SET ..., version = version + 1 WHERE id = ?} só com as colunas não nulas de
+     * {@code changes}, sem carregar a entidade. Se {@code changes} tiver versão, ela entra no WHERE e a
+     * atualização só acontece se a linha ainda estiver nessa versão. Retorna a quantidade de linhas alteradas.
+     */
+    @Override
+    @Transactional
+    public int patch(Long id, Book changes) {
+        StringBuilder sql = new StringBuilder("update book set ");
+        List<Object> parameters = new ArrayList<>();
+        if (changes.getTitle() != null) {
+            sql.append("title = ?").append(parameters.size() + 1).append(", ");
+            parameters.add(changes.getTitle());
+        }
+        if (changes.getAuthor() != null) {
+            sql.append("author = ?").append(parameters.size() + 1).append(", ");
+            parameters.add(changes.getAuthor());
+        }
+        if (changes.getIsbn() != null) {
+            sql.append("isbn = ?").append(parameters.size() + 1).append(", ");
+            parameters.add(changes.getIsbn());
+        }
+        sql.append("version = version + 1 where id = ?").append(parameters.size() + 1);
+        parameters.add(id);
+        if (changes.getVersion() != null) {
+            sql.append(" and version = ?").append(parameters.size() + 1);
+            parameters.add(changes.getVersion());
+        }
+
+        Query update = singleBookStatement(sql.toString());
+        for (int i = 0; i < parameters.size(); i++) {
+            update.setParameter(i + 1, parameters.get(i));
+        }
+        return evictIfChanged(update.executeUpdate(), Collections.singletonList(id));
+    }
+
+    @Override
+    @Transactional
+    public int deleteBookById(Long id) {
+        int deleted = singleBookStatement("delete from book where id = ?1")
+                .setParameter(1, id)
+                .executeUpdate();
+        return evictIfChanged(deleted, Collections.singletonList(id));
+    }
+
+    @Override
+    @Transactional
+    public int deleteBooksByIds(Collection<Long> ids) {
+        int deleted = singleBookStatement("delete from book where id in (:ids)")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        return evictIfChanged(deleted, ids);
+    }
+
+    /**
+     * Comando SQL que altera livros conhecidos pelo id. Um {@code UPDATE}/{@code DELETE} em JPQL ou Criteria
+     * esvazia a região {@code book} inteira do cache de segundo nível; aqui o espaço de consulta vazio diz ao
+     * Hibernate que o comando não afeta nenhuma região, e {@link #evictIfChanged} despeja só os ids alterados.
+     * Sem espaço de consulta o Hibernate também não faz o flush automático, então ele é feito antes.
+     */
+    private Query singleBookStatement(String sql) {
+        entityManager.flush();
+        Query query = entityManager.createNativeQuery(sql);
+        query.unwrap(NativeQuery.class).addSynchronizedQuerySpace("");
+        return query;
+    }
+
+    /**
+     * Despeja os livros e as consultas em cache agora e de novo quando a transação terminar, como o Hibernate faz
+     * nos comandos em massa: entre os dois, outra transação ainda pode ler a linha antiga e devolvê-la ao cache.
+     */
+    private int evictIfChanged(int changed, Collection<Long> ids) {
+        if (changed == 0) {
+            return 0;
+        }
+        Cache cache = entityManager.getEntityManagerFactory().getCache().unwrap(Cache.class);
+        Runnable evict = () -> {
+            ids.forEach(id -> cache.evictEntityData(Book.class, id));
+            cache.evictQueryRegions();
+        };
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.run();
+                }
+            });
+        }
+        return changed;
+    }
+
+    /**
+     * Paginação por chave: {@code WHERE (property, id) > (value, id) ORDER BY property, id LIMIT limit},
+     * escrita como {@code property > value OR (property = value AND id > id)} para funcionar em qualquer banco.
+     * Os filtros seguem a mesma semântica do Example usado em {@code find}: contém, sem diferenciar maiúsculas.
+     */
+    @Override
+    public List<Book> findAfter(Book filter, String property, BookKeyset after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> book = query.from(Book.class);
+
+        List<Predicate> predicates = filterPredicates(cb, book, filter);
+        Path<Long> id = book.get("id");
+        if ("id".equals(property)) {
+            if (after != null) {
+                predicates.add(cb.greaterThan(id, after.getId()));
+            }
+            query.orderBy(cb.asc(id));
+        } else {
+            Path<String> key = book.get(property);
+            if (after != null) {
+                predicates.add(cb.or(
+                        cb.greaterThan(key, after.getValue()),
+                        cb.and(cb.equal(key, after.getValue()), cb.greaterThan(id, after.getId()))));
+            }
+            query.orderBy(cb.asc(key), cb.asc(id));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Busca a página pedida mais um registro, só para saber se existe próxima página, sem o {@code count(*)}.
+     */
+    @Override
+    public Slice<Book> findSlice(Book filter, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> book = query.from(Book.class);
+        query.where(filterPredicates(cb, book, filter).toArray(new Predicate[0]));
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), book, cb));
+
+        TypedQuery<Book> typedQuery = entityManager.createQuery(query);
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(typedQuery.getResultList(), pageable, false);
+        }
+        List<Book> books = typedQuery
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = books.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? books.subList(0, pageable.getPageSize()) : books, pageable, hasNext);
+    }
+
+    @Override
+    public long countMatching(Book filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Book> book = query.from(Book.class);
+        query.select(cb.count(book));
+        query.where(filterPredicates(cb, book, filter).toArray(new Predicate[0]));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    /**
+     * Lê os livros do filtro em ordem de id por um cursor JDBC com fetch size ajustado. Cada livro é
+     * desanexado do contexto de persistência assim que lido, para que a memória não cresça com o catálogo, e
+     * a sessão ignora o cache de segundo nível enquanto o stream estiver aberto, para que o catálogo inteiro não
+     * tire dele os livros quentes; a dica de cache da consulta não serviria, porque os livros do cursor são
+     * montados depois que a consulta retorna. Precisa ser consumido dentro de uma transação e fechado ao final.
+     */
+    @Override
+    public Stream<Book> streamMatching(Book filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> book = query.from(Book.class);
+        query.where(filterPredicates(cb, book, filter).toArray(new Predicate[0]));
+        query.orderBy(cb.asc(book.get("id")));
+
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode previous = session.getCacheMode();
+        session.setCacheMode(CacheMode.IGNORE);
+        try {
+            return entityManager.createQuery(query)
+                    .setHint(HINT_FETCH_SIZE, exportFetchSize)
+                    .getResultStream()
+                    .peek(entityManager::detach)
+                    .onClose(() -> session.setCacheMode(previous));
+        } catch (RuntimeException e) {
+            session.setCacheMode(previous);
+            throw e;
+        }
+    }
+
+    private static List<Predicate> filterPredicates(CriteriaBuilder cb, Root<Book> book, Book filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter == null) {
+            return predicates;
+        }
+        addContaining(predicates, cb, book.get("title"), filter.getTitle());
+        addContaining(predicates, cb, book.get("author"), filter.getAuthor());
+        addContaining(predicates, cb, book.get("isbn"), filter.getIsbn());
+        return predicates;
+    }
+
+    private static void addContaining(List<Predicate> predicates, CriteriaBuilder cb, Path<String> path, String term) {
+        if (term != null) {
+            String pattern = "%" + EscapeCharacter.DEFAULT.escape(term.toLowerCase(Locale.ROOT)) + "%";
+            predicates.add(cb.like(cb.lower(path), pattern, EscapeCharacter.DEFAULT.getEscapeCharacter()));
+        }
+    }
+}
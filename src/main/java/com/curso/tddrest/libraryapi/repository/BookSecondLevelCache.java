@@ -0,0 +1,41 @@
+package com.curso.tddrest.libraryapi.repository;
+
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import org.hibernate.Cache;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Despejo das regiões do Hibernate para escritas que não passam por ele, como as da API v2 em R2DBC. As escritas
+ * pelo JPA invalidam as regiões sozinhas; os comandos por id do {@link BookRepositoryCustom} despejam só os
+ * livros alterados.
+ */
+@Component
+public class BookSecondLevelCache {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public BookSecondLevelCache(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Tira o livro da região de entidades e descarta as consultas em cache, que podem incluí-lo ou não.
+     */
+    public void evict(Long id) {
+        cache().evictEntityData(Book.class, id);
+        evictQueries();
+    }
+
+    /**
+     * Descarta as consultas em cache depois de um livro novo, que pode mudar {@code existsByIsbn} e as buscas.
+     */
+    public void evictQueries() {
+        cache().evictQueryRegions();
+    }
+
+    private Cache cache() {
+        return entityManagerFactory.getCache().unwrap(Cache.class);
+    }
+}
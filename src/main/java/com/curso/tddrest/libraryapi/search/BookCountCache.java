@@ -0,0 +1,41 @@
+package com.curso.tddrest.libraryapi.search;
+
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Guarda por pouco tempo o total de livros de cada filtro, para que a paginação não precise repetir o
+ * {@code count(*)} a cada página. O total pode ficar defasado em até {@code library.search.count-cache.ttl}.
+ */
+@Component
+public class BookCountCache {
+
+    private final Cache<String, Long> counts;
+
+    public BookCountCache(@Value("${library.search.count-cache.ttl:30s}") Duration ttl,
+                          @Value("${library.search.count-cache.max-size:10000}") long maxSize) {
+        this.counts = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public long get(Book filter, Function<Book, Long> counter) {
+        return counts.get(key(filter), key -> counter.apply(filter));
+    }
+
+    static String key(Book filter) {
+        return normalize(filter.getTitle()) + '\u0000' + normalize(filter.getAuthor()) + '\u0000' + normalize(filter.getIsbn());
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,382 @@
+package com.curso.tddrest.libraryapi.search;
+
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Índice invertido de trigramas em memória para title, author e isbn.
+ * <p>
+ * Cada termo do filtro com pelo menos três caracteres é quebrado em trigramas; a interseção das
+ * listas de ids desses trigramas gera os candidatos, que são confirmados com um "contains" sem
+ * diferenciar maiúsculas. Assim a busca mantém a semântica do {@code LIKE '%termo%'} sem varrer a tabela.
+ * Filtros sem nenhum termo indexável devolvem {@link Optional#empty()} e a busca segue pelo banco.
+ * <p>
+ * Cada livro ocupa uma posição densa ({@code slot}) em arrays por coluna, e as listas de cada trigrama são
+ * {@link RoaringBitmap}s dessas posições, com poucos bytes por ocorrência em vez de um {@code Long} e um nó
+ * de hash. Posições de livros excluídos são reaproveitadas.
+ */
+@Slf4j
+@Component
+public class BookSearchIndex {
+
+    static final int GRAM_SIZE = 3;
+
+    private static final Set<String> SORTABLE = new HashSet<>(Arrays.asList("id", "title", "author", "isbn"));
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final BookRepository repository;
+    private final boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private final RoaringBitmap freeSlots = new RoaringBitmap();
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private String[] authors = new String[INITIAL_CAPACITY];
+    private String[] isbns = new String[INITIAL_CAPACITY];
+    private int nextSlot;
+    private final Map<String, RoaringBitmap> titleGrams = new HashMap<>();
+    private final Map<String, RoaringBitmap> authorGrams = new HashMap<>();
+    private final Map<String, RoaringBitmap> isbnGrams = new HashMap<>();
+
+    private volatile boolean ready;
+
+    public BookSearchIndex(BookRepository repository,
+                           @Value("${library.search.index.enabled:true}") boolean enabled) {
+        this.repository = repository;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            clear();
+            try (Stream<IndexedBook> books = repository.streamIndexedBooks()) {
+                books.forEach(this::add);
+            }
+            optimize(titleGrams);
+            optimize(authorGrams);
+            optimize(isbnGrams);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de busca de livros criado com {} documentos em {} ms",
+                slots.size(), System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void index(Book book) {
+        if (!enabled || book == null || book.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            remove(book.getId());
+            add(new IndexedBook(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Aplica só os campos não nulos de {@code changes} ao documento já indexado, para atualizações
+     * parciais que não releem o livro do banco.
+     */
+    public void patch(Long id, Book changes) {
+        if (!enabled || id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.get(id);
+            if (slot == null) {
+                return;
+            }
+            IndexedBook patched = new IndexedBook(id,
+                    changes.getTitle() != null ? changes.getTitle() : titles[slot],
+                    changes.getAuthor() != null ? changes.getAuthor() : authors[slot],
+                    changes.getIsbn() != null ? changes.getIsbn() : isbns[slot]);
+            remove(id);
+            add(patched);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Collection<Book> books) {
+        books.forEach(this::index);
+    }
+
+    public void delete(Long id) {
+        if (!enabled || id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna a página de ids que atendem ao filtro, na ordem pedida, ou vazio quando o índice não pode
+     * responder (ainda não carregado, filtro sem termo de pelo menos três caracteres ou ordenação por
+     * propriedade não indexada).
+     */
+    public Optional<Page<Long>> search(Book filter, Pageable pageable) {
+        if (!ready || !isSortable(pageable.getSort())) {
+            return Optional.empty();
+        }
+        String title = normalize(filter.getTitle());
+        String author = normalize(filter.getAuthor());
+        String isbn = normalize(filter.getIsbn());
+        if (!indexable(title) && !indexable(author) && !indexable(isbn)) {
+            return Optional.empty();
+        }
+
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? (int) Math.min(Integer.MAX_VALUE, offset + pageable.getPageSize()) : Integer.MAX_VALUE;
+        List<Long> page = new ArrayList<>();
+        long total = 0;
+
+        lock.readLock().lock();
+        try {
+            Comparator<Integer> comparator = comparator(pageable.getSort());
+            PriorityQueue<Integer> top = new PriorityQueue<>(comparator.reversed());
+            List<RoaringBitmap> postings = new ArrayList<>();
+            collect(postings, titleGrams, title);
+            collect(postings, authorGrams, author);
+            collect(postings, isbnGrams, isbn);
+
+            IntIterator candidates = FastAggregation.and(postings.iterator()).getIntIterator();
+            while (candidates.hasNext()) {
+                int slot = candidates.next();
+                if (matches(titles[slot], title)
+                        && matches(authors[slot], author)
+                        && matches(isbns[slot], isbn)) {
+                    total++;
+                    top.offer(slot);
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+
+            List<Integer> ordered = new ArrayList<>(top);
+            ordered.sort(comparator);
+            for (int i = (int) Math.min(offset, ordered.size()); i < ordered.size(); i++) {
+                page.add(ids[ordered.get(i)]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return Optional.of(new PageImpl<>(page, pageable, total));
+    }
+
+    private void clear() {
+        slots.clear();
+        freeSlots.clear();
+        ids = new long[INITIAL_CAPACITY];
+        titles = new String[INITIAL_CAPACITY];
+        authors = new String[INITIAL_CAPACITY];
+        isbns = new String[INITIAL_CAPACITY];
+        nextSlot = 0;
+        titleGrams.clear();
+        authorGrams.clear();
+        isbnGrams.clear();
+    }
+
+    private void add(IndexedBook document) {
+        int slot = allocate();
+        slots.put(document.getId(), slot);
+        ids[slot] = document.getId();
+        titles[slot] = document.getTitle();
+        authors[slot] = document.getAuthor();
+        isbns[slot] = document.getIsbn();
+        addGrams(titleGrams, document.getTitle(), slot);
+        addGrams(authorGrams, document.getAuthor(), slot);
+        addGrams(isbnGrams, document.getIsbn(), slot);
+    }
+
+    private void remove(Long id) {
+        Integer slot = slots.remove(id);
+        if (slot == null) {
+            return;
+        }
+        removeGrams(titleGrams, titles[slot], slot);
+        removeGrams(authorGrams, authors[slot], slot);
+        removeGrams(isbnGrams, isbns[slot], slot);
+        titles[slot] = null;
+        authors[slot] = null;
+        isbns[slot] = null;
+        freeSlots.add(slot);
+    }
+
+    private int allocate() {
+        if (!freeSlots.isEmpty()) {
+            int slot = freeSlots.first();
+            freeSlots.remove(slot);
+            return slot;
+        }
+        if (nextSlot == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            authors = Arrays.copyOf(authors, capacity);
+            isbns = Arrays.copyOf(isbns, capacity);
+        }
+        return nextSlot++;
+    }
+
+    private static void addGrams(Map<String, RoaringBitmap> postings, String value, int slot) {
+        for (String gram : grams(normalize(value))) {
+            postings.computeIfAbsent(gram, key -> new RoaringBitmap()).add(slot);
+        }
+    }
+
+    private static void removeGrams(Map<String, RoaringBitmap> postings, String value, int slot) {
+        for (String gram : grams(normalize(value))) {
+            RoaringBitmap slots = postings.get(gram);
+            if (slots != null) {
+                slots.remove(slot);
+                if (slots.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static void optimize(Map<String, RoaringBitmap> postings) {
+        for (RoaringBitmap slots : postings.values()) {
+            slots.runOptimize();
+            slots.trim();
+        }
+    }
+
+    private static Set<String> grams(String value) {
+        if (!indexable(value)) {
+            return Collections.emptySet();
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    /**
+     * Junta as listas de posições de cada trigrama do termo; a interseção dos bitmaps é feita por blocos
+     * de 64 mil posições, então o custo acompanha os trigramas mais seletivos e não o tamanho do catálogo.
+     */
+    private static void collect(List<RoaringBitmap> postings, Map<String, RoaringBitmap> grams, String term) {
+        if (!indexable(term)) {
+            return;
+        }
+        for (String gram : grams(term)) {
+            postings.add(grams.getOrDefault(gram, new RoaringBitmap()));
+        }
+    }
+
+    private static boolean matches(String value, String term) {
+        if (term == null) {
+            return true;
+        }
+        if (value == null) {
+            return false;
+        }
+        int max = value.length() - term.length();
+        for (int i = 0; i <= max; i++) {
+            if (value.regionMatches(true, i, term, 0, term.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean indexable(String term) {
+        return term != null && term.length() >= GRAM_SIZE;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isSortable(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (!SORTABLE.contains(order.getProperty())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ordena posições pelos valores das colunas; só pode ser usado com o lock de leitura, porque os arrays
+     * são trocados quando crescem.
+     */
+    private Comparator<Integer> comparator(Sort sort) {
+        Comparator<Integer> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<String> values = order.isAscending()
+                    ? Comparator.nullsFirst(Comparator.<String>naturalOrder())
+                    : Comparator.nullsLast(Comparator.<String>reverseOrder());
+            Comparator<Integer> next;
+            switch (order.getProperty()) {
+                case "title":
+                    next = Comparator.comparing(slot -> titles[slot], values);
+                    break;
+                case "author":
+                    next = Comparator.comparing(slot -> authors[slot], values);
+                    break;
+                case "isbn":
+                    next = Comparator.comparing(slot -> isbns[slot], values);
+                    break;
+                default:
+                    Comparator<Integer> byId = Comparator.comparingLong(slot -> ids[slot]);
+                    next = order.isAscending() ? byId : byId.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        Comparator<Integer> byId = Comparator.comparingLong(slot -> ids[slot]);
+        return comparator == null ? byId : comparator.thenComparing(byId);
+    }
+}
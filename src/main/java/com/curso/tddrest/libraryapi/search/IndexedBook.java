@@ -0,0 +1,13 @@
+package com.curso.tddrest.libraryapi.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class IndexedBook {
+    private Long id;
+    private String title;
+    private String author;
+    private String isbn;
+}
@@ -0,0 +1,169 @@
+package com.curso.tddrest.libraryapi.search;
+
+import com.curso.tddrest.libraryapi.repository.BookRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Filtro de Bloom com os ISBNs cadastrados. Uma resposta "ausente" é definitiva e dispensa o
+ * {@code existsByIsbn}; só "talvez presente" consulta o banco. Exclusões não removem bits, então
+ * ISBNs apagados apenas viram falsos positivos até o próximo restart.
+ * <p>
+ * Enquanto não é carregado, o filtro responde "talvez" para tudo e o comportamento é o mesmo de antes.
+ */
+@Slf4j
+@Component
+public class IsbnBloomFilter {
+
+    private final BookRepository repository;
+    private final int numBits;
+    private final int numHashes;
+    private final AtomicLongArray bits;
+    private final AtomicLong insertions = new AtomicLong();
+
+    private final Counter absent;
+    private final Counter maybePresent;
+    private final Counter falsePositives;
+
+    private volatile boolean ready;
+
+    public IsbnBloomFilter(BookRepository repository, MeterRegistry registry,
+                           @Value("${library.isbn-filter.expected-insertions:1000000}") long expectedInsertions,
+                           @Value("${library.isbn-filter.fpp:0.01}") double fpp) {
+        this.repository = repository;
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.numBits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, optimalBits));
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+        this.bits = new AtomicLongArray((numBits + 63) / 64);
+
+        this.absent = Counter.builder("library.isbn.filter.checks").tag("result", "absent").register(registry);
+        this.maybePresent = Counter.builder("library.isbn.filter.checks").tag("result", "maybe").register(registry);
+        this.falsePositives = Counter.builder("library.isbn.filter.false.positives").register(registry);
+        Gauge.builder("library.isbn.filter.memory", this, IsbnBloomFilter::memoryBytes)
+                .baseUnit("bytes").register(registry);
+        Gauge.builder("library.isbn.filter.insertions", insertions, AtomicLong::get).register(registry);
+        Gauge.builder("library.isbn.filter.expected.fpp", this, IsbnBloomFilter::expectedFpp).register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        long start = System.currentTimeMillis();
+        try (Stream<String> isbns = repository.streamIsbns()) {
+            isbns.forEach(this::put);
+        }
+        ready = true;
+        log.info("Filtro de ISBN carregado com {} ISBNs ({} bytes) em {} ms",
+                insertions.get(), memoryBytes(), System.currentTimeMillis() - start);
+    }
+
+    public void put(String isbn) {
+        if (isbn == null) {
+            return;
+        }
+        long hash = hash(isbn);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            int index = bitIndex(h1, h2, i);
+            long mask = 1L << index;
+            int word = index >>> 6;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+        insertions.incrementAndGet();
+    }
+
+    public boolean mightContain(String isbn) {
+        if (!ready || isbn == null) {
+            return true;
+        }
+        long hash = hash(isbn);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            int index = bitIndex(h1, h2, i);
+            if ((bits.get(index >>> 6) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Devolve quais dos ISBNs já existem consultando o banco ({@code lookup}) apenas com os que o filtro
+     * não consegue descartar, e contabiliza as respostas para as métricas de falso positivo: cada ISBN
+     * "talvez presente" que o banco não devolve é um falso positivo.
+     */
+    public Set<String> existing(Collection<String> isbns, Function<List<String>, Collection<String>> lookup) {
+        List<String> candidates = new ArrayList<>();
+        for (String isbn : new LinkedHashSet<>(isbns)) {
+            if (mightContain(isbn)) {
+                candidates.add(isbn);
+            } else {
+                absent.increment();
+            }
+        }
+        if (candidates.isEmpty()) {
+            return Collections.emptySet();
+        }
+        maybePresent.increment(candidates.size());
+        Set<String> existing = new HashSet<>(lookup.apply(candidates));
+        if (ready) {
+            falsePositives.increment(candidates.stream().filter(isbn -> !existing.contains(isbn)).count());
+        }
+        return existing;
+    }
+
+    public long memoryBytes() {
+        return bits.length() * 8L;
+    }
+
+    public double expectedFpp() {
+        double fillRatio = 1 - Math.exp(-numHashes * (double) insertions.get() / numBits);
+        return Math.pow(fillRatio, numHashes);
+    }
+
+    private int bitIndex(int h1, int h2, int i) {
+        int combined = h1 + i * h2;
+        if (combined < 0) {
+            combined = ~combined;
+        }
+        return combined % numBits;
+    }
+
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
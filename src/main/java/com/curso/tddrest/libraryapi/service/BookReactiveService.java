@@ -0,0 +1,18 @@
+package com.curso.tddrest.libraryapi.service;
+
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface BookReactiveService {
+    Mono<Book> save(Book book);
+
+    Mono<Book> getById(Long id);
+
+    Mono<Book> update(Book book);
+
+    Mono<Boolean> deleteById(Long id);
+
+    Flux<Book> find(Book filter, Pageable pageRequest);
+}
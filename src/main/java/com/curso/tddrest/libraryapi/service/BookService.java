@@ -1,20 +1,45 @@
 package com.curso.tddrest.libraryapi.service;
 
+import com.curso.tddrest.libraryapi.model.batch.BookBatchResult;
 import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.model.pagination.BookKeyset;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookService {
     Book save(Book book);
 
+    List<BookBatchResult> saveAll(List<Book> books);
+
     Optional<Book> getById(Long id);
 
+    Map<Long, Book> getByIds(Collection<Long> ids);
+
     void delete(Book book);
 
+    boolean deleteById(Long id);
+
+    int deleteAllById(Collection<Long> ids);
+
     Book update(Book book);
 
+    boolean patch(Long id, Book changes);
+
     Page<Book> find(Book filter, Pageable pageRequest);
+
+    Page<Book> findWithCachedCount(Book filter, Pageable pageRequest);
+
+    Slice<Book> findSlice(Book filter, Pageable pageRequest);
+
+    void export(Book filter, Consumer<Book> consumer);
+
+    List<Book> findAfter(Book filter, String sortBy, BookKeyset after, int limit);
 }
\ No newline at end of file
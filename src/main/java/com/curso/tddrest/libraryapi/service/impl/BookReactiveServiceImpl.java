@@ -0,0 +1,128 @@
+package com.curso.tddrest.libraryapi.service.impl;
+
+import com.curso.tddrest.libraryapi.config.CacheConfig;
+import com.curso.tddrest.libraryapi.datasource.ReplicaLagFallback;
+import com.curso.tddrest.libraryapi.exception.BusinessException;
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.model.pagination.BookKeyset;
+import com.curso.tddrest.libraryapi.repository.BookReactiveRepository;
+import com.curso.tddrest.libraryapi.repository.BookSecondLevelCache;
+import com.curso.tddrest.libraryapi.search.BookSearchIndex;
+import com.curso.tddrest.libraryapi.search.IsbnBloomFilter;
+import com.curso.tddrest.libraryapi.service.BookReactiveService;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Mesmas regras do {@link BookServiceImpl} sobre o repositório R2DBC: ISBN duplicado vira
+ * {@link BusinessException} pelo índice único, e cada escrita mantém o cache de livros, o cache de segundo nível
+ * do Hibernate, o índice de busca e o filtro de ISBN em dia para a API v1. O R2DBC grava no primário, então os
+ * livros alterados também são marcados no {@link ReplicaLagFallback}.
+ */
+@Service
+public class BookReactiveServiceImpl implements BookReactiveService {
+
+    private final BookReactiveRepository repository;
+    private final BookSearchIndex searchIndex;
+    private final IsbnBloomFilter isbnFilter;
+    private final Cache cache;
+    private final BookSecondLevelCache secondLevelCache;
+    private final ReplicaLagFallback replicaLag;
+
+    public BookReactiveServiceImpl(BookReactiveRepository repository, BookSearchIndex searchIndex,
+                                   IsbnBloomFilter isbnFilter, CacheManager cacheManager,
+                                   BookSecondLevelCache secondLevelCache, ReplicaLagFallback replicaLag) {
+        this.repository = repository;
+        this.searchIndex = searchIndex;
+        this.isbnFilter = isbnFilter;
+        this.cache = cacheManager.getCache(CacheConfig.BOOKS);
+        this.secondLevelCache = secondLevelCache;
+        this.replicaLag = replicaLag;
+    }
+
+    @Override
+    public Mono<Book> save(Book book) {
+        return repository.insert(book)
+                .onErrorMap(DataIntegrityViolationException.class, BookReactiveServiceImpl::translateDuplicatedIsbn)
+                .doOnNext(saved -> {
+                    secondLevelCache.evictQueries();
+                    isbnFilter.put(saved.getIsbn());
+                    searchIndex.index(saved);
+                });
+    }
+
+    @Override
+    public Mono<Book> getById(Long id) {
+        return Mono.defer(() -> Mono.justOrEmpty(cache.get(id, Book.class)))
+                .switchIfEmpty(Mono.defer(() -> repository.findById(id).doOnNext(book -> cache.put(id, book))));
+    }
+
+    /**
+     * Retorna o livro atualizado ou vazio se ele não existir. Com versão em {@code book}, a atualização é
+     * condicionada a ela e falha com {@link OptimisticLockingFailureException} se o livro mudou.
+     */
+    @Override
+    public Mono<Book> update(Book book) {
+        if (book == null || book.getId() == null) {
+            return Mono.error(new IllegalArgumentException("Id do livro não pode ser nulo"));
+        }
+        return repository.update(book)
+                .onErrorMap(DataIntegrityViolationException.class, BookReactiveServiceImpl::translateDuplicatedIsbn)
+                .flatMap(updated -> {
+                    if (updated > 0) {
+                        replicaLag.written(book.getId());
+                    }
+                    cache.evict(book.getId());
+                    secondLevelCache.evict(book.getId());
+                    if (updated > 0) {
+                        return repository.findById(book.getId());
+                    }
+                    if (book.getVersion() == null) {
+                        return Mono.empty();
+                    }
+                    return repository.findById(book.getId())
+                            .flatMap(current -> Mono.error(new OptimisticLockingFailureException(BookServiceImpl.STALE_VERSION)));
+                })
+                .doOnNext(updated -> {
+                    isbnFilter.put(updated.getIsbn());
+                    searchIndex.index(updated);
+                });
+    }
+
+    @Override
+    public Mono<Boolean> deleteById(Long id) {
+        return repository.deleteById(id)
+                .map(deleted -> {
+                    if (deleted > 0) {
+                        replicaLag.written(id);
+                    }
+                    cache.evict(id);
+                    secondLevelCache.evict(id);
+                    if (deleted == 0) {
+                        return false;
+                    }
+                    searchIndex.delete(id);
+                    return true;
+                });
+    }
+
+    /**
+     * A ordenação é validada antes de devolver o {@code Flux}: numa resposta em streaming o status já foi
+     * enviado quando o primeiro erro chega.
+     */
+    @Override
+    public Flux<Book> find(Book filter, Pageable pageRequest) {
+        pageRequest.getSort().forEach(order -> BookKeyset.checkSortable(order.getProperty()));
+        return repository.findMatching(filter, pageRequest);
+    }
+
+    private static Throwable translateDuplicatedIsbn(DataIntegrityViolationException e) {
+        return BookServiceImpl.isDuplicatedIsbn(e) ? new BusinessException(BookServiceImpl.DUPLICATED_ISBN) : e;
+    }
+}
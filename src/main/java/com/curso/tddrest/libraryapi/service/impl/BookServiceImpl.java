@@ -1,54 +1,319 @@
 package com.curso.tddrest.libraryapi.service.impl;
 
+import com.curso.tddrest.libraryapi.concurrent.SingleFlight;
+import com.curso.tddrest.libraryapi.config.CacheConfig;
+import com.curso.tddrest.libraryapi.datasource.ReadOnlyTransactions;
+import com.curso.tddrest.libraryapi.datasource.ReplicaLagFallback;
 import com.curso.tddrest.libraryapi.exception.BusinessException;
+import com.curso.tddrest.libraryapi.model.batch.BookBatchResult;
 import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.model.pagination.BookKeyset;
 import com.curso.tddrest.libraryapi.repository.BookRepository;
+import com.curso.tddrest.libraryapi.search.BookCountCache;
+import com.curso.tddrest.libraryapi.search.BookSearchIndex;
+import com.curso.tddrest.libraryapi.search.IsbnBloomFilter;
 import com.curso.tddrest.libraryapi.service.BookService;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-@RequiredArgsConstructor
 public class BookServiceImpl implements BookService {
+    static final String DUPLICATED_ISBN = "ISBN já cadastrado";
+    static final String STALE_VERSION = "Livro alterado por outra requisição";
+    private static final int MAX_IN_PARAMETERS = 1000;
+
     private final BookRepository repository;
+    private final BookSearchIndex searchIndex;
+    private final BookCountCache countCache;
+    private final IsbnBloomFilter isbnFilter;
+    private final ReadOnlyTransactions readOnly;
+    private final ReplicaLagFallback replicaLag;
+    private final SingleFlight<Long, Optional<Book>> byIdLoads;
+    private final SingleFlight<List<Object>, Page<Book>> findLoads;
+
+    public BookServiceImpl(BookRepository repository, BookSearchIndex searchIndex, BookCountCache countCache,
+                           IsbnBloomFilter isbnFilter, ReadOnlyTransactions readOnly, ReplicaLagFallback replicaLag,
+                           MeterRegistry registry) {
+        this.repository = repository;
+        this.searchIndex = searchIndex;
+        this.countCache = countCache;
+        this.isbnFilter = isbnFilter;
+        this.readOnly = readOnly;
+        this.replicaLag = replicaLag;
+        this.byIdLoads = new SingleFlight<>("getById", registry);
+        this.findLoads = new SingleFlight<>("find", registry);
+    }
 
     @Override
     public Book save(Book book) {
-        if (repository.existsByIsbn(book.getIsbn())) {
-            throw new BusinessException("ISBN já cadastrado");
+        Book saved = translateDuplicatedIsbn(() -> repository.saveAndFlush(book));
+        isbnFilter.put(book.getIsbn());
+        searchIndex.index(saved);
+        return saved;
+    }
+
+    @Override
+    public List<BookBatchResult> saveAll(List<Book> books) {
+        Set<String> existing = findExistingIsbns(books);
+        Set<String> seen = new HashSet<>();
+        List<BookBatchResult> results = new ArrayList<>(books.size());
+        List<Book> toInsert = new ArrayList<>(books.size());
+
+        for (Book book : books) {
+            if (existing.contains(book.getIsbn()) || !seen.add(book.getIsbn())) {
+                results.add(BookBatchResult.rejected(book, DUPLICATED_ISBN));
+            } else {
+                toInsert.add(book);
+                results.add(BookBatchResult.created(book));
+            }
+        }
+
+        try {
+            repository.insertAll(toInsert);
+        } catch (DataIntegrityViolationException e) {
+            if (!isDuplicatedIsbn(e)) {
+                throw e;
+            }
+            // Outra requisição gravou algum desses ISBNs depois da consulta: o lote foi desfeito,
+            // então grava um a um para rejeitar só os conflitantes.
+            return saveOneByOne(results);
+        }
+        toInsert.forEach(book -> isbnFilter.put(book.getIsbn()));
+        searchIndex.index(toInsert);
+        return results;
+    }
+
+    private List<BookBatchResult> saveOneByOne(List<BookBatchResult> results) {
+        List<BookBatchResult> retried = new ArrayList<>(results.size());
+        for (BookBatchResult result : results) {
+            if (!result.isCreated()) {
+                retried.add(result);
+                continue;
+            }
+            Book book = result.getBook();
+            try {
+                retried.add(BookBatchResult.created(save(Book.builder()
+                        .title(book.getTitle())
+                        .author(book.getAuthor())
+                        .isbn(book.getIsbn())
+                        .build())));
+            } catch (BusinessException e) {
+                retried.add(BookBatchResult.rejected(book, e.getMessage()));
+            }
+        }
+        return retried;
+    }
+
+    private Set<String> findExistingIsbns(List<Book> books) {
+        List<String> isbns = books.stream().map(Book::getIsbn).collect(Collectors.toList());
+        return isbnFilter.existing(isbns, candidates -> {
+            Set<String> existing = new HashSet<>();
+            for (int from = 0; from < candidates.size(); from += MAX_IN_PARAMETERS) {
+                int to = Math.min(from + MAX_IN_PARAMETERS, candidates.size());
+                existing.addAll(repository.findExistingIsbns(candidates.subList(from, to)));
+            }
+            return existing;
+        });
+    }
+
+    private static <T> T translateDuplicatedIsbn(Supplier<T> write) {
+        try {
+            return write.get();
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicatedIsbn(e)) {
+                throw new BusinessException(DUPLICATED_ISBN);
+            }
+            throw e;
         }
-        return repository.save(book);
     }
 
+    static boolean isDuplicatedIsbn(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(Book.ISBN_INDEX);
+    }
+
+    /**
+     * Numa falta de cache, leituras simultâneas do mesmo id dividem um único {@code findById}, e só quem executa
+     * a consulta abre transação. Com réplicas, um livro alterado há pouco é lido do primário, para que o cache não
+     * guarde a versão anterior ainda na réplica, e um livro não encontrado é procurado de novo no primário.
+     */
     @Override
+    @Cacheable(cacheNames = CacheConfig.BOOKS, key = "#id", unless = "#result == null")
     public Optional<Book> getById(Long id) {
-        return repository.findById(id);
+        return byIdLoads.execute(id, () -> {
+            if (replicaLag.isRecentlyWritten(id)) {
+                return replicaLag.fromPrimary(() -> repository.findById(id));
+            }
+            Optional<Book> book = readOnly.execute(() -> repository.findById(id));
+            if (book.isPresent() || !replicaLag.isEnabled()) {
+                return book;
+            }
+            return replicaLag.fromPrimary(() -> repository.findById(id));
+        });
+    }
+
+    /**
+     * Busca os livros em consultas {@code IN} de até {@value #MAX_IN_PARAMETERS} ids e devolve os encontrados
+     * na ordem de {@code ids}; quem não existe fica fora do mapa. Com réplicas, os que faltaram são procurados
+     * de novo no primário.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Book> getByIds(Collection<Long> ids) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, Book> byId = findAllById(distinct);
+        if (byId.size() < distinct.size() && replicaLag.isEnabled()) {
+            List<Long> missing = distinct.stream()
+                    .filter(id -> !byId.containsKey(id))
+                    .collect(Collectors.toList());
+            byId.putAll(replicaLag.fromPrimary(() -> findAllById(missing)));
+        }
+        Map<Long, Book> ordered = new LinkedHashMap<>();
+        for (Long id : distinct) {
+            Book book = byId.get(id);
+            if (book != null) {
+                ordered.put(id, book);
+            }
+        }
+        return ordered;
+    }
+
+    private Map<Long, Book> findAllById(List<Long> ids) {
+        Map<Long, Book> byId = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MAX_IN_PARAMETERS) {
+            int to = Math.min(from + MAX_IN_PARAMETERS, ids.size());
+            for (Book book : repository.findAllById(ids.subList(from, to))) {
+                byId.put(book.getId(), book);
+            }
+        }
+        return byId;
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#book.id", condition = "#book != null")
     public void delete(Book book) {
         if (book == null || book.getId() == null) {
             throw new IllegalArgumentException("Id do livro não pode ser nulo");
         }
         repository.delete(book);
+        replicaLag.written(book.getId());
+        searchIndex.delete(book.getId());
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#id")
+    public boolean deleteById(Long id) {
+        if (repository.deleteBookById(id) == 0) {
+            return false;
+        }
+        replicaLag.written(id);
+        searchIndex.delete(id);
+        return true;
     }
 
+    /**
+     * Remove todos os ids num único DELETE. Como não dá para despejar várias chaves com
+     * {@code @CacheEvict}, o cache de livros é esvaziado inteiro; exclusão em lote é rara.
+     */
     @Override
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, allEntries = true)
+    public int deleteAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int deleted = repository.deleteBooksByIds(ids);
+        ids.forEach(replicaLag::written);
+        ids.forEach(searchIndex::delete);
+        return deleted;
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#book.id", condition = "#book != null")
     public Book update(Book book) {
         if (book == null || book.getId() == null) {
             throw new IllegalArgumentException("Id do livro não pode ser nulo");
         }
-        return repository.save(book);
+        Book updated = translateDuplicatedIsbn(() -> repository.save(book));
+        replicaLag.written(book.getId());
+        isbnFilter.put(book.getIsbn());
+        searchIndex.index(updated);
+        return updated;
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#id")
+    public boolean patch(Long id, Book changes) {
+        if (changes.getTitle() == null && changes.getAuthor() == null && changes.getIsbn() == null) {
+            throw new BusinessException("Informe ao menos um campo para atualizar");
+        }
+        if (translateDuplicatedIsbn(() -> repository.patch(id, changes)) == 0) {
+            if (changes.getVersion() != null && existsOnPrimary(id)) {
+                throw new OptimisticLockingFailureException(STALE_VERSION);
+            }
+            return false;
+        }
+        replicaLag.written(id);
+        isbnFilter.put(changes.getIsbn());
+        searchIndex.patch(id, changes);
+        return true;
     }
 
+    /**
+     * Decide entre 412 e 404 depois de um UPDATE condicional sem efeito. O {@code existsById} do Spring Data roda
+     * numa transação somente leitura, que iria para a réplica, onde um livro recém-criado ainda pode faltar.
+     */
+    private boolean existsOnPrimary(Long id) {
+        if (!replicaLag.isEnabled()) {
+            return repository.existsById(id);
+        }
+        return replicaLag.fromPrimary(() -> repository.existsById(id));
+    }
+
+    /**
+     * Buscas simultâneas com o mesmo filtro e a mesma página dividem uma única consulta, numa transação aberta só
+     * por quem a executa.
+     */
     @Override
     public Page<Book> find(Book filter, Pageable pageRequest) {
+        List<Object> key = Arrays.asList(filter.getTitle(), filter.getAuthor(), filter.getIsbn(), pageRequest);
+        return findLoads.execute(key, () -> readOnly.execute(() -> search(filter, pageRequest)));
+    }
+
+    private Page<Book> search(Book filter, Pageable pageRequest) {
+        Optional<Page<Long>> ids = searchIndex.search(filter, pageRequest);
+        if (ids.isPresent()) {
+            return findIndexed(ids.get());
+        }
         Example<Book> example = Example.of(
                 filter,
                 ExampleMatcher.matching()
@@ -58,4 +323,48 @@ public class BookServiceImpl implements BookService {
         );
         return repository.findAll(example, pageRequest);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Book> findWithCachedCount(Book filter, Pageable pageRequest) {
+        Optional<Page<Long>> ids = searchIndex.search(filter, pageRequest);
+        if (ids.isPresent()) {
+            return findIndexed(ids.get());
+        }
+        Slice<Book> slice = repository.findSlice(filter, pageRequest);
+        return PageableExecutionUtils.getPage(slice.getContent(), pageRequest,
+                () -> countCache.get(filter, repository::countMatching));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Book> findSlice(Book filter, Pageable pageRequest) {
+        Optional<Page<Long>> ids = searchIndex.search(filter, pageRequest);
+        if (ids.isPresent()) {
+            Page<Book> page = findIndexed(ids.get());
+            return new SliceImpl<>(page.getContent(), pageRequest, page.hasNext());
+        }
+        return repository.findSlice(filter, pageRequest);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void export(Book filter, Consumer<Book> consumer) {
+        try (Stream<Book> books = repository.streamMatching(filter)) {
+            books.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Book> findAfter(Book filter, String sortBy, BookKeyset after, int limit) {
+        String property = after != null ? after.getProperty() : sortBy;
+        BookKeyset.checkSortable(property);
+        return repository.findAfter(filter, property, after, limit);
+    }
+
+    private Page<Book> findIndexed(Page<Long> ids) {
+        List<Book> books = new ArrayList<>(getByIds(ids.getContent()).values());
+        return new PageImpl<>(books, ids.getPageable(), ids.getTotalElements());
+    }
 }
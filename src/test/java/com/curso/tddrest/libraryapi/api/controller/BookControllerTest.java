@@ -1,45 +1,78 @@
 package com.curso.tddrest.libraryapi.api.controller;
 
+import com.curso.tddrest.libraryapi.api.importer.BookImporter;
+import com.curso.tddrest.libraryapi.config.BinaryFormatConfig;
 import com.curso.tddrest.libraryapi.exception.BusinessException;
+import com.curso.tddrest.libraryapi.mapper.impl.BookMapperImpl;
+import com.curso.tddrest.libraryapi.model.batch.BookBatchResult;
 import com.curso.tddrest.libraryapi.model.dto.request.BookRequest;
+import com.curso.tddrest.libraryapi.model.dto.response.BookPageResponse;
 import com.curso.tddrest.libraryapi.model.dto.response.BookResponse;
 import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.model.pagination.BookKeyset;
 import com.curso.tddrest.libraryapi.service.BookService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.BDDMockito;
 import org.mockito.Mockito;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MockMvcBuilder;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @WebMvcTest(controllers = BookController.class)
 @AutoConfigureMockMvc
+@Import({BookMapperImpl.class, BookImporter.class, BinaryFormatConfig.class})
 public class BookControllerTest {
 
     static final String BOOK_API = "/api/books";
@@ -144,7 +177,25 @@ public class BookControllerTest {
                 .andExpect(jsonPath("id").value(id))
                 .andExpect(jsonPath("title").value(book.getTitle()))
                 .andExpect(jsonPath("author").value(book.getAuthor()))
-                .andExpect(jsonPath("isbn").value(book.getIsbn()));
+                .andExpect(jsonPath("isbn").value(book.getIsbn()))
+                .andExpect(jsonPath("version").value(0))
+                .andExpect(header().string("ETag", "\"0\""));
+    }
+
+    @Test
+    @DisplayName("Deve responder 304 sem corpo quando o livro não mudou desde o ETag informado")
+    public void getBookDetailsNotModifiedTest() throws Exception {
+        BDDMockito.given(service.getById(id)).willReturn(Optional.of(newBook()));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/" + id))
+                .header("If-None-Match", "\"0\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(content().string(""));
     }
 
     @Test
@@ -165,7 +216,7 @@ public class BookControllerTest {
     @DisplayName("Deve deletar um livro")
     public void deleteBookTest() throws Exception {
 
-        BDDMockito.given(service.getById(anyLong())).willReturn(Optional.of(newBook()));
+        BDDMockito.given(service.deleteById(id)).willReturn(true);
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .delete(BOOK_API.concat("/" + id))
@@ -173,41 +224,206 @@ public class BookControllerTest {
 
         mvc.perform(request)
                 .andExpect(status().isNoContent());
+
+        Mockito.verify(service, Mockito.never()).getById(anyLong());
     }
 
     @Test
     @DisplayName("Deve exibir erro de livro não encontrado ao tentar deletar")
     public void bookToDeleteNotFound() throws Exception {
-        BDDMockito.given(service.getById(anyLong())).willReturn(Optional.empty());
+        BDDMockito.given(service.deleteById(anyLong())).willReturn(false);
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
-                .get(BOOK_API.concat("/" + 1))
+                .delete(BOOK_API.concat("/" + 1))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Deve deletar vários livros de uma vez informando quantos foram removidos")
+    public void deleteBooksTest() throws Exception {
+        BDDMockito.given(service.deleteAllById(anyCollection())).willReturn(2);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .delete(BOOK_API.concat("?ids=1,2,3,3"))
                 .accept(MediaType.APPLICATION_JSON);
 
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("requested").value(3))
+                .andExpect(jsonPath("deleted").value(2));
+
+        Mockito.verify(service).deleteAllById(new LinkedHashSet<>(Arrays.asList(1L, 2L, 3L)));
+    }
+
+    @Test
+    @DisplayName("Deve obter vários livros na ordem pedida informando os ids inexistentes")
+    public void getBooksByIdsTest() throws Exception {
+        Book second = Book.builder().id(2L).author("Outro Autor").title("Outro Titulo").isbn("654321").version(0L).build();
+        Map<Long, Book> found = new LinkedHashMap<>();
+        found.put(2L, second);
+        found.put(1L, newBook());
+        BDDMockito.given(service.getByIds(anyCollection())).willReturn(found);
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?ids=2,9,1,2")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(2)))
+                .andExpect(jsonPath("content[0].id").value(2))
+                .andExpect(jsonPath("content[1].id").value(1))
+                .andExpect(jsonPath("missing", hasSize(1)))
+                .andExpect(jsonPath("missing[0]").value(9));
+
+        Mockito.verify(service).getByIds(new LinkedHashSet<>(Arrays.asList(2L, 9L, 1L)));
+        Mockito.verify(service, Mockito.never()).getById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro ao pedir mais livros por id do que o limite")
+    public void getBooksByTooManyIdsTest() throws Exception {
+        String ids = LongStream.rangeClosed(1, 1001).mapToObj(String::valueOf).collect(Collectors.joining(","));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?ids=" + ids)).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Informe entre 1 e 1000 ids"));
+
+        Mockito.verifyNoInteractions(service);
+    }
+
+    @Test
+    @DisplayName("Deve atualizar parcialmente um livro só com os campos enviados")
+    public void patchBookTest() throws Exception {
+        BDDMockito.given(service.patch(eq(id), any(Book.class))).willReturn(true);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(BOOK_API.concat("/" + id))
+                .content("{\"title\":\"Novo Titulo\"}")
+                .contentType(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isNoContent());
+
+        Mockito.verify(service).patch(id, Book.builder().title("Novo Titulo").build());
+        Mockito.verify(service, Mockito.never()).getById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve retornar livro não encontrado ao atualizar parcialmente")
+    public void patchBookNotFoundTest() throws Exception {
+        BDDMockito.given(service.patch(anyLong(), any(Book.class))).willReturn(false);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(BOOK_API.concat("/" + id))
+                .content("{\"author\":\"Outro Autor\"}")
+                .contentType(MediaType.APPLICATION_JSON);
+
         mvc.perform(request)
                 .andExpect(status().isNotFound());
     }
 
     @Test
-    @DisplayName("Deve atualizar um livro")
+    @DisplayName("Deve rejeitar campo vazio na atualização parcial")
+    public void patchBookInvalidTest() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(BOOK_API.concat("/" + id))
+                .content("{\"isbn\":\"\"}")
+                .contentType(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors", hasSize(1)));
+
+        Mockito.verify(service, Mockito.never()).patch(anyLong(), any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Deve atualizar parcialmente com If-Match devolvendo o ETag da nova versão")
+    public void patchBookIfMatchTest() throws Exception {
+        BDDMockito.given(service.patch(eq(id), any(Book.class))).willReturn(true);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(BOOK_API.concat("/" + id))
+                .header("If-Match", "\"3\"")
+                .content("{\"title\":\"Novo Titulo\"}")
+                .contentType(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"4\""));
+
+        Mockito.verify(service).patch(id, Book.builder().title("Novo Titulo").version(3L).build());
+    }
+
+    @Test
+    @DisplayName("Deve responder 412 quando o If-Match não corresponder à versão atual")
+    public void patchBookStaleVersionTest() throws Exception {
+        BDDMockito.given(service.patch(eq(id), any(Book.class)))
+                .willThrow(new OptimisticLockingFailureException("Livro alterado por outra requisição"));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(BOOK_API.concat("/" + id))
+                .header("If-Match", "\"2\"")
+                .content("{\"title\":\"Novo Titulo\"}")
+                .contentType(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("errors[0]").value("Livro alterado por outra requisição"));
+    }
+
+    @Test
+    @DisplayName("Deve responder 412 para If-Match que não seja uma versão")
+    public void patchBookInvalidIfMatchTest() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(BOOK_API.concat("/" + id))
+                .header("If-Match", "W/\"2\"")
+                .content("{\"title\":\"Novo Titulo\"}")
+                .contentType(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isPreconditionFailed());
+
+        Mockito.verify(service, Mockito.never()).patch(anyLong(), any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Deve substituir um livro com If-Match num único UPDATE sem ler o livro")
+    public void updateBookIfMatchTest() throws Exception {
+        BDDMockito.given(service.patch(eq(id), any(Book.class))).willReturn(true);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .put(BOOK_API.concat("/" + id))
+                .header("If-Match", "\"0\"")
+                .content(new ObjectMapper().writeValueAsString(newBookRequest()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("id").value(id))
+                .andExpect(jsonPath("version").value(1));
+
+        Mockito.verify(service, Mockito.never()).getById(anyLong());
+        Mockito.verify(service, Mockito.never()).update(any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Deve atualizar um livro sem If-Match com um UPDATE incondicional")
     public void updateBookTest() throws Exception {
 
         Long bookId = id;
-        Book bookToBeUpdated = Book.builder()
-                .id(bookId)
-                .isbn("321")
-                .author("Autor desconhecido")
-                .title("Titulo meia boca")
-                .build();
         Book bookUpdated = Book.builder()
                 .id(id)
                 .author("Escritor Famoso")
                 .title("Titulo Maroto")
                 .isbn("321")
+                .version(4L)
                 .build();
 
-        BDDMockito.given(service.getById(bookId)).willReturn(Optional.of(bookToBeUpdated));
-        BDDMockito.given(service.update(bookUpdated)).willReturn(bookUpdated);
+        BDDMockito.given(service.patch(eq(bookId), any(Book.class))).willReturn(true);
+        BDDMockito.given(service.getById(bookId)).willReturn(Optional.of(bookUpdated));
 
 
         String json = new ObjectMapper().writeValueAsString(bookUpdated);
@@ -219,10 +435,17 @@ public class BookControllerTest {
 
         mvc.perform(request)
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
                 .andExpect(jsonPath("id").value(bookUpdated.getId()))
                 .andExpect(jsonPath("title").value(bookUpdated.getTitle()))
                 .andExpect(jsonPath("author").value(bookUpdated.getAuthor()))
                 .andExpect(jsonPath("isbn").value(bookUpdated.getIsbn()));
+
+        ArgumentCaptor<Book> changes = ArgumentCaptor.forClass(Book.class);
+        Mockito.verify(service).patch(eq(bookId), changes.capture());
+        assertThat(changes.getValue().getVersion()).isNull();
+        assertThat(changes.getValue().getIsbn()).isEqualTo("321");
+        Mockito.verify(service, Mockito.never()).update(any(Book.class));
     }
 
     @Test
@@ -231,7 +454,7 @@ public class BookControllerTest {
 
         String json = new ObjectMapper().writeValueAsString(newBookRequest());
 
-        BDDMockito.given(service.getById(anyLong())).willReturn(Optional.empty());
+        BDDMockito.given(service.patch(anyLong(), any(Book.class))).willReturn(false);
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .put(BOOK_API.concat("/" + 1))
@@ -270,9 +493,415 @@ public class BookControllerTest {
                 .andExpect(jsonPath("totalElements").value(1))
                 .andExpect(jsonPath("pageable.pageSize").value(100))
                 .andExpect(jsonPath("pageable.pageNumber").value(0))
+                .andExpect(header().string("ETag", startsWith("W/\"")))
         ;
     }
 
+    @Test
+    @DisplayName("Deve filtrar livros devolvendo o envelope enxuto, sem pageable e sort")
+    public void bookFilterLeanEnvelopeTest() throws Exception {
+        BDDMockito.given(service.find(any(Book.class), any(Pageable.class))).willReturn(
+                new PageImpl<Book>(Arrays.asList(newBook()), PageRequest.of(2, 10), 21));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?page=2&size=10&envelope=lean"))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("number").value(2))
+                .andExpect(jsonPath("size").value(10))
+                .andExpect(jsonPath("totalElements").value(21))
+                .andExpect(jsonPath("totalPages").value(3))
+                .andExpect(jsonPath("pageable").doesNotExist())
+                .andExpect(jsonPath("sort").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro ao pedir envelope de página desconhecido")
+    public void bookFilterInvalidEnvelopeTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?envelope=xml"))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Envelope não suportado: xml"));
+    }
+
+    @Test
+    @DisplayName("Deve criar livro recebido em CBOR e responder em CBOR")
+    public void createBookCborTest() throws Exception {
+        ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+        BDDMockito.given(service.save(any(Book.class))).willReturn(newBook());
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.post(BOOK_API)
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .content(cbor.writeValueAsBytes(newBookRequest())))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Content-Type", MediaType.APPLICATION_CBOR_VALUE))
+                .andReturn();
+
+        BookResponse response = cbor.readValue(result.getResponse().getContentAsByteArray(), BookResponse.class);
+        assertThat(response.getId()).isEqualTo(id);
+        assertThat(response.getIsbn()).isEqualTo("123456");
+        Mockito.verify(service).save(Mockito.argThat(book -> "Titulo Maroto".equals(book.getTitle())));
+    }
+
+    @Test
+    @DisplayName("Deve validar livro recebido em CBOR como em JSON")
+    public void createInvalidBookCborTest() throws Exception {
+        ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.post(BOOK_API)
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .content(cbor.writeValueAsBytes(new BookRequest())))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        assertThat(cbor.readTree(result.getResponse().getContentAsByteArray()).get("errors")).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Deve devolver a página enxuta em Smile")
+    public void bookFilterSmileTest() throws Exception {
+        ObjectMapper smile = new ObjectMapper(new SmileFactory());
+        BDDMockito.given(service.find(any(Book.class), any(Pageable.class))).willReturn(
+                new PageImpl<Book>(Arrays.asList(newBook()), PageRequest.of(0, 10), 1));
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?envelope=lean"))
+                .accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-jackson-smile"))
+                .andReturn();
+
+        BookPageResponse page = smile.readValue(result.getResponse().getContentAsByteArray(), BookPageResponse.class);
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        assertThat(page.getContent()).extracting(BookResponse::getIsbn).containsExactly("123456");
+    }
+
+    @Test
+    @DisplayName("Deve responder 304 na busca quando a página não mudou e mudar o ETag quando um livro mudar")
+    public void bookFilterNotModifiedTest() throws Exception {
+        Book book = newBook();
+        BDDMockito.given(service.find(any(Book.class), any(Pageable.class))).willReturn(
+                new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 10), 1));
+
+        String etag = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?title=Titulo&page=0&size=10")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?title=Titulo&page=0&size=10"))
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        book.setVersion(1L);
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?title=Titulo&page=0&size=10"))
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
+    @Test
+    @DisplayName("Deve criar livros em lote informando o resultado de cada item")
+    public void createBooksInBatchTest() throws Exception {
+        BookRequest valid = newBookRequest();
+        BookRequest duplicated = BookRequest.builder().author("Outro Autor").title("Outro Titulo").isbn("999").build();
+        List<BookRequest> requests = Arrays.asList(valid, new BookRequest(), duplicated);
+
+        BDDMockito.given(service.saveAll(anyList())).willReturn(Arrays.asList(
+                BookBatchResult.created(newBook()),
+                BookBatchResult.rejected(Book.builder().isbn("999").build(), "ISBN já cadastrado")));
+
+        String json = new ObjectMapper().writeValueAsString(requests);
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/batch"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("created").value(1))
+                .andExpect(jsonPath("rejected").value(2))
+                .andExpect(jsonPath("items", hasSize(3)))
+                .andExpect(jsonPath("items[0].status").value("CREATED"))
+                .andExpect(jsonPath("items[0].book.id").value(id))
+                .andExpect(jsonPath("items[1].status").value("REJECTED"))
+                .andExpect(jsonPath("items[1].errors", hasSize(3)))
+                .andExpect(jsonPath("items[2].index").value(2))
+                .andExpect(jsonPath("items[2].status").value("REJECTED"))
+                .andExpect(jsonPath("items[2].errors[0]").value("ISBN já cadastrado"));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar apenas o item nulo de um lote")
+    public void createBooksInBatchWithNullItemTest() throws Exception {
+        BDDMockito.given(service.saveAll(anyList())).willReturn(Arrays.asList(BookBatchResult.created(newBook())));
+
+        String json = "[null, " + new ObjectMapper().writeValueAsString(newBookRequest()) + "]";
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/batch"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("created").value(1))
+                .andExpect(jsonPath("rejected").value(1))
+                .andExpect(jsonPath("items[0].status").value("REJECTED"))
+                .andExpect(jsonPath("items[0].errors[0]").value("Livro não informado"))
+                .andExpect(jsonPath("items[1].status").value("CREATED"));
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro ao criar um lote acima do tamanho máximo")
+    public void createBooksInBatchTooLargeTest() throws Exception {
+        List<BookRequest> requests = Collections.nCopies(1001, newBookRequest());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/batch"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(requests));
+
+        mvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("O lote deve ter no máximo 1000 livros"));
+
+        Mockito.verify(service, Mockito.never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros em modo slice sem total de registros")
+    public void bookFilterSliceTest() throws Exception {
+        BDDMockito.given(service.findSlice(any(Book.class), any(Pageable.class))).willReturn(
+                new SliceImpl<>(Arrays.asList(newBook()), PageRequest.of(0, 1), true));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?title=Titulo&page=0&size=1&count=none"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("number").value(0))
+                .andExpect(jsonPath("size").value(1))
+                .andExpect(jsonPath("hasNext").value(true))
+                .andExpect(jsonPath("totalElements").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros usando o total em cache")
+    public void bookFilterCachedCountTest() throws Exception {
+        BDDMockito.given(service.findWithCachedCount(any(Book.class), any(Pageable.class))).willReturn(
+                new PageImpl<Book>(Arrays.asList(newBook()), PageRequest.of(0, 1), 42));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?title=Titulo&page=0&size=1&count=cached"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("totalElements").value(42));
+    }
+
+    @Test
+    @DisplayName("Deve exportar os livros filtrados em NDJSON")
+    public void exportNdjsonTest() throws Exception {
+        Book second = Book.builder().id(2L).author("Outro Autor").title("Outro Titulo").isbn("654321").version(3L).build();
+        willExport(newBook(), second);
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/export?author=Autor")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andExpect(content().string(
+                        "{\"id\":1,\"title\":\"Titulo Maroto\",\"author\":\"Escritor Famoso\",\"isbn\":\"123456\",\"version\":0}\n" +
+                        "{\"id\":2,\"title\":\"Outro Titulo\",\"author\":\"Outro Autor\",\"isbn\":\"654321\",\"version\":3}\n"));
+    }
+
+    @Test
+    @DisplayName("Deve exportar os livros em CSV escapando os campos")
+    public void exportCsvTest() throws Exception {
+        willExport(Book.builder().id(1L).author("Silva, João").title("O \"Livro\"").isbn("123").build());
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/export?format=csv")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(content().string("id,title,author,isbn\n1,\"O \"\"Livro\"\"\",\"Silva, João\",123\n"));
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro ao exportar em formato não suportado")
+    public void exportInvalidFormatTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/export?format=xml")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Formato de exportação não suportado: xml"));
+    }
+
+    @Test
+    @DisplayName("Deve importar livros de um corpo NDJSON informando aceitos e rejeitados")
+    public void importNdjsonTest() throws Exception {
+        BDDMockito.given(service.saveAll(anyList())).willAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            return Arrays.asList(
+                    BookBatchResult.created(books.get(0)),
+                    BookBatchResult.rejected(books.get(1), "ISBN já cadastrado"));
+        });
+
+        String body = "{\"author\":\"Autor 1\",\"title\":\"Titulo 1\",\"isbn\":\"1\"}\n" +
+                "{\"author\":\"Autor 2\",\"title\":\"Titulo 2\",\"isbn\":\"2\"}\n" +
+                "\n" +
+                "{\"author\":\"Autor 3\"}\n" +
+                "isto não é json\n";
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/import"))
+                .contentType("application/x-ndjson")
+                .accept(MediaType.APPLICATION_JSON)
+                .content(body);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("accepted").value(1))
+                .andExpect(jsonPath("rejected").value(3))
+                .andExpect(jsonPath("rowsPerSecond").isNumber())
+                .andExpect(jsonPath("errors", hasSize(3)))
+                .andExpect(jsonPath("errors[0].line").value(4))
+                .andExpect(jsonPath("errors[0].errors", hasSize(2)))
+                .andExpect(jsonPath("errors[1].line").value(5))
+                .andExpect(jsonPath("errors[1].errors[0]").value("Linha inválida"))
+                .andExpect(jsonPath("errors[2].line").value(2))
+                .andExpect(jsonPath("errors[2].errors[0]").value("ISBN já cadastrado"));
+    }
+
+    @Test
+    @DisplayName("Deve importar livros de um corpo CSV pelas colunas do cabeçalho")
+    public void importCsvTest() throws Exception {
+        BDDMockito.given(service.saveAll(anyList())).willAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            assertThat(books).extracting(Book::getAuthor).containsExactly("Silva, João");
+            assertThat(books).extracting(Book::getTitle).containsExactly("O \"Livro\"");
+            return Arrays.asList(BookBatchResult.created(books.get(0)));
+        });
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/import"))
+                .contentType("text/csv")
+                .accept(MediaType.APPLICATION_JSON)
+                .content("isbn,title,author\n123,\"O \"\"Livro\"\"\",\"Silva, João\"\n");
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("accepted").value(1))
+                .andExpect(jsonPath("rejected").value(0));
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro ao importar CSV sem as colunas obrigatórias")
+    public void importCsvInvalidHeaderTest() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/import"))
+                .contentType("text/csv")
+                .accept(MediaType.APPLICATION_JSON)
+                .content("nome,autor\nLivro,Autor\n");
+
+        mvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Cabeçalho CSV deve conter as colunas title, author e isbn"));
+    }
+
+    @Test
+    @DisplayName("Deve paginar por cursor devolvendo o cursor da próxima página")
+    public void findBookByCursorTest() throws Exception {
+        Book first = newBook();
+        Book second = Book.builder().id(2L).author("Outro Autor").title("Titulo Seguinte").isbn("654321").build();
+
+        BDDMockito.given(service.findAfter(any(Book.class), eq("title"), isNull(), eq(2)))
+                .willReturn(Arrays.asList(first, second));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?cursor=&sortBy=title&size=1"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("content[0].id").value(id))
+                .andExpect(jsonPath("next").value(new BookKeyset("title", id, first.getTitle()).encode()));
+    }
+
+    @Test
+    @DisplayName("Deve encerrar a paginação por cursor na última página")
+    public void findBookByCursorLastPageTest() throws Exception {
+        String cursor = new BookKeyset("id", 1L, null).encode();
+
+        BDDMockito.given(service.findAfter(any(Book.class), eq("id"), any(BookKeyset.class), anyInt()))
+                .willReturn(Arrays.asList(Book.builder().id(2L).title("Titulo").author("Autor").isbn("2").build()));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?cursor=" + cursor))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("next").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro ao receber cursor inválido")
+    public void findBookByInvalidCursorTest() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?cursor=invalido"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Cursor inválido"));
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro ao pedir livros por id e por cursor na mesma requisição")
+    public void findBookByIdsAndCursorTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?ids=1&cursor="))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Informe só um modo de listagem: ids, cursor ou count=none"));
+
+        Mockito.verifyNoInteractions(service);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro ao combinar o modo slice com cursor ou ids")
+    public void findBookSliceWithOtherModeTest() throws Exception {
+        for (String query : Arrays.asList("?count=none&cursor=", "?count=none&ids=1", "?ids=1&count=exact")) {
+            mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat(query))
+                    .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("errors[0]").value("Informe só um modo de listagem: ids, cursor ou count=none"));
+        }
+
+        Mockito.verifyNoInteractions(service);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void willExport(Book... books) {
+        BDDMockito.willAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(1);
+            Arrays.asList(books).forEach(consumer);
+            return null;
+        }).given(service).export(any(Book.class), any(Consumer.class));
+    }
+
     private BookRequest newBookRequest() {
         return BookRequest.builder()
                 .author("Escritor Famoso")
@@ -287,6 +916,7 @@ public class BookControllerTest {
                 .author("Escritor Famoso")
                 .title("Titulo Maroto")
                 .isbn("123456")
+                .version(0L)
                 .build();
     }
 }
\ No newline at end of file
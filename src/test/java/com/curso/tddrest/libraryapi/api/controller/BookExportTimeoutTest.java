@@ -0,0 +1,57 @@
+package com.curso.tddrest.libraryapi.api.controller;
+
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.service.BookService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * Num servidor de verdade, porque o MockMvc não aplica o prazo das requisições assíncronas: o prazo padrão fica
+ * em 1 s e a exportação, que leva uns 3 s, precisa chegar inteira.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.mvc.async.request-timeout=1s", "library.export.timeout=1m"})
+public class BookExportTimeoutTest {
+
+    private static final int ROWS = 6;
+
+    @LocalServerPort
+    int port;
+
+    @MockBean
+    BookService service;
+
+    @Test
+    @DisplayName("Deve concluir uma exportação mais longa que o prazo padrão das requisições assíncronas")
+    public void exportOutlivesDefaultAsyncTimeoutTest() throws Exception {
+        BDDMockito.willAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(1);
+            for (long id = 1; id <= ROWS; id++) {
+                Thread.sleep(500);
+                consumer.accept(Book.builder().id(id).title("Titulo").author("Autor").isbn("isbn-" + id).version(0L).build());
+            }
+            return null;
+        }).given(service).export(any(Book.class), any());
+
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books/export")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body().split("\n")).hasSize(ROWS);
+        assertThat(response.body()).endsWith("\"isbn\":\"isbn-" + ROWS + "\",\"version\":0}\n");
+    }
+}
@@ -0,0 +1,253 @@
+package com.curso.tddrest.libraryapi.api.controller;
+
+import com.curso.tddrest.libraryapi.config.ReactiveApiConfig;
+import com.curso.tddrest.libraryapi.exception.BusinessException;
+import com.curso.tddrest.libraryapi.mapper.impl.BookMapperImpl;
+import com.curso.tddrest.libraryapi.model.dto.request.BookRequest;
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.service.BookReactiveService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+/**
+ * Exercita o contexto WebFlux de {@link ReactiveApiConfig} sem servidor. O filtro põe {@code /api/v2} como
+ * context path, o mesmo que o {@code ServletHttpHandlerAdapter} deriva do mapeamento {@code /api/v2/*}.
+ */
+public class BookReactiveControllerTest {
+
+    static final String BOOK_API = ReactiveApiConfig.PATH + "/books";
+
+    BookReactiveService service;
+    GenericApplicationContext parent;
+    ConfigurableApplicationContext context;
+    WebTestClient client;
+
+    @BeforeEach
+    public void setUp() {
+        service = Mockito.mock(BookReactiveService.class);
+        parent = new GenericApplicationContext();
+        parent.registerBean(BookReactiveService.class, () -> service);
+        parent.registerBean(BookMapperImpl.class);
+        parent.registerBean(ObjectMapper.class);
+        parent.refresh();
+        context = ReactiveApiConfig.createContext(parent);
+        client = WebTestClient.bindToApplicationContext(context)
+                .webFilter((exchange, chain) -> chain.filter(exchange.mutate()
+                        .request(exchange.getRequest().mutate().contextPath(ReactiveApiConfig.PATH).build())
+                        .build()))
+                .build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        context.close();
+        parent.close();
+    }
+
+    @Test
+    @DisplayName("Deve criar novo livro com base no json recebido")
+    public void createBookTest() {
+        BDDMockito.given(service.save(any(Book.class))).willReturn(Mono.just(newBook()));
+
+        client.post().uri(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(newBookRequest())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("id").isEqualTo(1)
+                .jsonPath("isbn").isEqualTo("123456");
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de validação sem chamar o serviço quando faltar dado do livro")
+    public void createInvalidBookTest() {
+        client.post().uri(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new BookRequest())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("errors.length()").isEqualTo(3);
+
+        Mockito.verifyNoInteractions(service);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro ao cadastrar livro com isbn já utilizado")
+    public void createBookWithDuplicatedIsbnTest() {
+        BDDMockito.given(service.save(any(Book.class)))
+                .willReturn(Mono.error(new BusinessException("ISBN já cadastrado")));
+
+        client.post().uri(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(newBookRequest())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("errors[0]").isEqualTo("ISBN já cadastrado");
+    }
+
+    @Test
+    @DisplayName("Deve obter informações de um livro com ETag da versão")
+    public void getBookDetailsTest() {
+        BDDMockito.given(service.getById(1L)).willReturn(Mono.just(newBook()));
+
+        client.get().uri(BOOK_API.concat("/1"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"0\"")
+                .expectBody()
+                .jsonPath("title").isEqualTo("Titulo Maroto");
+    }
+
+    @Test
+    @DisplayName("Deve retornar not found quando o livro procurado não existir")
+    public void bookNotFoundTest() {
+        BDDMockito.given(service.getById(1L)).willReturn(Mono.empty());
+
+        client.get().uri(BOOK_API.concat("/1"))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Deve atualizar um livro condicionado à versão do If-Match")
+    public void updateBookTest() {
+        Book updated = newBook();
+        updated.setTitle("Novo Titulo");
+        updated.setVersion(1L);
+        BDDMockito.given(service.update(any(Book.class))).willReturn(Mono.just(updated));
+
+        client.put().uri(BOOK_API.concat("/1"))
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(newBookRequest())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"1\"")
+                .expectBody()
+                .jsonPath("title").isEqualTo("Novo Titulo");
+
+        Mockito.verify(service).update(Mockito.argThat(book -> book.getId() == 1L && book.getVersion() == 0L));
+    }
+
+    @Test
+    @DisplayName("Deve retornar 412 ao atualizar um livro alterado por outra requisição")
+    public void updateStaleBookTest() {
+        BDDMockito.given(service.update(any(Book.class)))
+                .willReturn(Mono.error(new OptimisticLockingFailureException("Livro alterado por outra requisição")));
+
+        client.put().uri(BOOK_API.concat("/1"))
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(newBookRequest())
+                .exchange()
+                .expectStatus().isEqualTo(412)
+                .expectBody()
+                .jsonPath("errors[0]").isEqualTo("Livro alterado por outra requisição");
+    }
+
+    @Test
+    @DisplayName("Deve retornar not found ao atualizar um livro inexistente")
+    public void updateNonExistentBookTest() {
+        BDDMockito.given(service.update(any(Book.class))).willReturn(Mono.empty());
+
+        client.put().uri(BOOK_API.concat("/1"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(newBookRequest())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Deve deletar um livro")
+    public void deleteBookTest() {
+        BDDMockito.given(service.deleteById(1L)).willReturn(Mono.just(true));
+
+        client.delete().uri(BOOK_API.concat("/1"))
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+
+    @Test
+    @DisplayName("Deve retornar not found ao deletar um livro inexistente")
+    public void deleteNonExistentBookTest() {
+        BDDMockito.given(service.deleteById(1L)).willReturn(Mono.just(false));
+
+        client.delete().uri(BOOK_API.concat("/1"))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Deve transmitir a busca filtrada como NDJSON, um livro por linha")
+    public void findBooksStreamTest() {
+        Book second = Book.builder().id(2L).author("Escritor Famoso").title("Outro Titulo").isbn("654321").version(2L).build();
+        BDDMockito.given(service.find(any(Book.class), eq(PageRequest.of(0, 2))))
+                .willReturn(Flux.just(newBook(), second));
+
+        client.get().uri(BOOK_API.concat("?author=Escritor&page=0&size=2"))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class).isEqualTo(
+                        "{\"id\":1,\"title\":\"Titulo Maroto\",\"author\":\"Escritor Famoso\",\"isbn\":\"123456\",\"version\":0}\n" +
+                        "{\"id\":2,\"title\":\"Outro Titulo\",\"author\":\"Escritor Famoso\",\"isbn\":\"654321\",\"version\":2}\n");
+
+        Mockito.verify(service).find(Mockito.argThat(filter -> "Escritor".equals(filter.getAuthor())), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve devolver a busca como array JSON quando o cliente pedir JSON")
+    public void findBooksJsonTest() {
+        BDDMockito.given(service.find(any(Book.class), any(Pageable.class))).willReturn(Flux.just(newBook()));
+
+        client.get().uri(BOOK_API)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].isbn").isEqualTo("123456");
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar ordenação não suportada antes de iniciar o streaming")
+    public void findBooksInvalidSortTest() {
+        BDDMockito.given(service.find(any(Book.class), any(Pageable.class)))
+                .willThrow(new BusinessException("Ordenação não suportada: version"));
+
+        client.get().uri(BOOK_API.concat("?sort=version"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("errors[0]").isEqualTo("Ordenação não suportada: version");
+    }
+
+    private Book newBook() {
+        return Book.builder().id(1L).author("Escritor Famoso").title("Titulo Maroto").isbn("123456").version(0L).build();
+    }
+
+    private BookRequest newBookRequest() {
+        return BookRequest.builder().author("Escritor Famoso").title("Titulo Maroto").isbn("123456").build();
+    }
+}
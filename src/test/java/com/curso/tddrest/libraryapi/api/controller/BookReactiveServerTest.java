@@ -0,0 +1,92 @@
+package com.curso.tddrest.libraryapi.api.controller;
+
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.service.BookReactiveService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * A v2 montada no Tomcat de verdade, com só duas threads de requisição: se cada streaming ocupasse uma thread
+ * enquanto espera o próximo livro, as requisições andariam de duas em duas.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"server.tomcat.threads.max=2", "server.tomcat.threads.min-spare=1"})
+public class BookReactiveServerTest {
+
+    private static final int CLIENTS = 20;
+    private static final int ROWS = 5;
+    private static final Duration ROW_DELAY = Duration.ofMillis(200);
+
+    @LocalServerPort
+    int port;
+
+    @MockBean
+    BookReactiveService service;
+
+    @Test
+    @DisplayName("Deve atender a v2 pelo WebFlux montado em /api/v2")
+    public void getBookDetailsTest() throws Exception {
+        BDDMockito.given(service.getById(1L)).willReturn(Mono.just(book(1L)));
+
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(uri("/api/v2/books/1")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("ETag")).hasValue("\"0\"");
+        assertThat(response.body()).contains("\"isbn\":\"isbn-1\"");
+    }
+
+    @Test
+    @DisplayName("Deve transmitir buscas lentas simultâneas sem prender as threads do Tomcat")
+    public void concurrentSlowStreamsTest() {
+        BDDMockito.given(service.find(any(Book.class), any(Pageable.class)))
+                .willAnswer(invocation -> Flux.range(1, ROWS).map(id -> book((long) id)).delayElements(ROW_DELAY));
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(uri("/api/v2/books"))
+                .header("Accept", "application/x-ndjson")
+                .GET()
+                .build();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        responses.forEach(response -> {
+            assertThat(response.join().statusCode()).isEqualTo(200);
+            assertThat(response.join().body().split("\n")).hasSize(ROWS);
+        });
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // Duas threads presas por ~1 s a cada streaming dariam uns 10 s.
+        assertThat(elapsed).isLessThan(ROW_DELAY.multipliedBy(ROWS).multipliedBy(CLIENTS / 4));
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static Book book(Long id) {
+        return Book.builder().id(id).title("Titulo").author("Autor").isbn("isbn-" + id).version(0L).build();
+    }
+}
@@ -0,0 +1,128 @@
+package com.curso.tddrest.libraryapi.api.filter;
+
+import com.curso.tddrest.libraryapi.concurrent.AdaptiveLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AdaptiveLimiter readLimiter = new AdaptiveLimiter("read", 1, 1, 1, Duration.ofSeconds(1), 0.9, registry);
+    private final AdaptiveLimiter writeLimiter = new AdaptiveLimiter("write", 1, 1, 1, Duration.ofSeconds(1), 0.9, registry);
+    private final AdaptiveLimiter bulkLimiter = AdaptiveLimiter.fixed("bulk", 1, registry);
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(readLimiter, writeLimiter, bulkLimiter,
+            Duration.ofSeconds(2), new ObjectMapper(), Collections.singletonList("/api/books/export"));
+
+    @Test
+    @DisplayName("Deve responder 503 com Retry-After quando o limite de leitura está ocupado")
+    public void rejectWhenReadLimitReachedTest() throws Exception {
+        readLimiter.tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/books/1"), response, chain);
+
+        assertThat(chain.getRequest()).isNull();
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(response.getContentAsString()).contains(ConcurrencyLimitFilter.OVERLOADED);
+    }
+
+    @Test
+    @DisplayName("Deve controlar leituras e escritas com limites separados e liberar a vaga ao terminar")
+    public void separateReadAndWriteLimitsTest() throws Exception {
+        readLimiter.tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/books"), response, chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(writeLimiter.getInFlight()).isZero();
+        assertThat(readLimiter.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve manter a vaga ocupada até a resposta assíncrona terminar")
+    public void releaseAfterAsyncCompletionTest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> req.startAsync());
+
+        assertThat(readLimiter.getInFlight()).isEqualTo(1);
+        MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onComplete(new AsyncEvent(asyncContext));
+        }
+        assertThat(readLimiter.getInFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Não deve reduzir o limite por uma exportação demorada, só por requisições comuns lentas")
+    public void exportIsNotLatencySampleTest() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("strict", 4, 1, 4, Duration.ofNanos(1), 0.5, registry);
+        ConcurrencyLimitFilter strictFilter = new ConcurrencyLimitFilter(limiter, limiter, bulkLimiter,
+                Duration.ofSeconds(1), new ObjectMapper(), Collections.singletonList("/api/books/export"));
+        MockHttpServletRequest export = startExport(strictFilter);
+        Thread.sleep(5);
+        complete(export);
+        assertThat(bulkLimiter.getInFlight()).isZero();
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        strictFilter.doFilter(new MockHttpServletRequest("GET", "/api/books/1"), new MockHttpServletResponse(),
+                (req, res) -> LockSupport.parkNanos(Duration.ofMillis(5).toNanos()));
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Não deve bloquear leituras comuns enquanto uma exportação demorada ocupa o limite de exportação")
+    public void longExportDoesNotBlockReadsTest() throws Exception {
+        MockHttpServletRequest export = startExport(filter);
+        assertThat(bulkLimiter.getInFlight()).isEqualTo(1);
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/books/1"), response, chain);
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse secondExport = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/books/export"), secondExport, new MockFilterChain());
+        assertThat(secondExport.getStatus()).isEqualTo(503);
+
+        complete(export);
+        assertThat(bulkLimiter.getInFlight()).isZero();
+        assertThat(readLimiter.getInFlight()).isZero();
+    }
+
+    private static MockHttpServletRequest startExport(ConcurrencyLimitFilter filter) throws Exception {
+        MockHttpServletRequest export = new MockHttpServletRequest("GET", "/api/books/export");
+        export.setAsyncSupported(true);
+        filter.doFilter(export, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        return export;
+    }
+
+    private static void complete(MockHttpServletRequest request) throws Exception {
+        MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onComplete(new AsyncEvent(asyncContext));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.curso.tddrest.libraryapi.concurrent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveLimiterTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(1).toNanos();
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final AdaptiveLimiter limiter = new AdaptiveLimiter("test", 4, 2, 8, Duration.ofMillis(100), 0.5, registry);
+
+    @Test
+    @DisplayName("Deve recusar sem esperar quando o limite de requisições simultâneas é atingido")
+    public void rejectAboveLimitTest() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(4);
+        assertThat(registry.get("library.limiter.rejected").tag("name", "test").counter().count()).isEqualTo(1);
+
+        limiter.release(FAST);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve reduzir o limite pela metade quando a latência passa do máximo, sem cair abaixo do mínimo")
+    public void decreaseOnSlowResponseTest() {
+        limiter.tryAcquire();
+        limiter.release(SLOW);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        limiter.tryAcquire();
+        limiter.release(SLOW);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(registry.get("library.limiter.limit").tag("name", "test").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve aumentar o limite aos poucos enquanto as respostas são rápidas e o limite está em uso")
+    public void increaseOnFastResponseTest() {
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < limiter.getLimit(); i++) {
+                limiter.tryAcquire();
+            }
+            while (limiter.getInFlight() > 0) {
+                limiter.release(FAST);
+            }
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("Não deve aumentar o limite enquanto a carga fica abaixo da metade dele")
+    public void keepLimitWhenIdleTest() {
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.release(FAST);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Deve liberar a vaga sem mexer no limite quando a requisição não é amostra de latência")
+    public void releaseWithoutSampleTest() {
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire();
+        }
+        for (int i = 0; i < 4; i++) {
+            limiter.release();
+        }
+
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+}
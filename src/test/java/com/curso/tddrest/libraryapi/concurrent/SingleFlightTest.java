@@ -0,0 +1,108 @@
+package com.curso.tddrest.libraryapi.concurrent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>("test", registry);
+
+    @Test
+    @DisplayName("Deve executar uma única carga para chamadas simultâneas da mesma chave")
+    public void coalesceConcurrentLoadsTest() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("livro", () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "resultado";
+                })));
+            }
+            while (count("coalesced") < CALLERS - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("resultado");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(count("executed")).isEqualTo(1);
+        assertThat(count("coalesced")).isEqualTo(CALLERS - 1);
+    }
+
+    @Test
+    @DisplayName("Deve repassar a exceção da carga para quem estava esperando")
+    public void propagateFailureTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("livro", () -> {
+                await(release);
+                throw new IllegalStateException("banco fora");
+            }));
+            while (count("executed") < 1) {
+                Thread.sleep(5);
+            }
+            Future<Throwable> follower = executor.submit(() ->
+                    catchThrowable(() -> singleFlight.execute("livro", () -> "não deveria rodar")));
+            while (count("coalesced") < 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isInstanceOf(IllegalStateException.class).hasMessage("banco fora");
+            assertThat(catchThrowable(() -> leader.get(5, TimeUnit.SECONDS))).hasCauseInstanceOf(IllegalStateException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Não deve guardar o resultado depois que a carga termina")
+    public void loadAgainAfterCompletionTest() {
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute("livro", () -> String.valueOf(loads.incrementAndGet()));
+        singleFlight.execute("livro", () -> String.valueOf(loads.incrementAndGet()));
+
+        assertThat(loads).hasValue(2);
+        assertThat(count("coalesced")).isZero();
+    }
+
+    private double count(String result) {
+        return registry.get("library.singleflight.loads").tag("name", "test").tag("result", result).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.curso.tddrest.libraryapi.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.annotation.UserConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class VirtualThreadConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(UserConfigurations.of(VirtualThreadConfig.class));
+
+    @Test
+    @DisplayName("Não deve trocar os executores quando o modo de threads virtuais está desligado")
+    public void disabledByDefaultTest() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(VirtualThreadConfig.class));
+    }
+
+    @Test
+    @DisplayName("Deve executar o trabalho assíncrono em threads virtuais no Java 21")
+    public void virtualExecutorTest() {
+        assumeTrue(Runtime.version().feature() >= 21);
+
+        contextRunner.withPropertyValues("library.threads.virtual=true").run(context -> {
+            AsyncTaskExecutor executor = context.getBean(AsyncTaskExecutor.class);
+            Boolean virtual = executor.submit(() -> (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()))
+                    .get(5, TimeUnit.SECONDS);
+            assertThat(virtual).isTrue();
+        });
+    }
+
+    @Test
+    @DisplayName("Deve falhar na subida com mensagem clara quando o Java não tem threads virtuais")
+    public void requiresJava21Test() {
+        assumeTrue(Runtime.version().feature() < 21);
+
+        contextRunner.withPropertyValues("library.threads.virtual=true").run(context ->
+                assertThat(context).getFailure().hasRootCauseInstanceOf(NoSuchMethodException.class)
+                        .hasStackTraceContaining("Threads virtuais exigem Java 21"));
+    }
+}
@@ -0,0 +1,100 @@
+package com.curso.tddrest.libraryapi.datasource;
+
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.service.BookService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Dois bancos H2 separados fazem o papel de primário e réplica, sem replicação entre eles: o que só existe
+ * num dos dois mostra de onde a leitura veio.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReadReplicaRoutingTest.PRIMARY_URL,
+        "library.datasource.replica.urls=" + ReadReplicaRoutingTest.REPLICA_URL
+})
+public class ReadReplicaRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1;"
+            + "INIT=RUNSCRIPT FROM 'classpath:replica-schema.sql'";
+
+    @Autowired
+    BookService service;
+
+    private final JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Test
+    @DisplayName("Deve ler da réplica nas consultas somente leitura")
+    public void readFromReplicaTest() {
+        replica.update("insert into book (id, title, author, isbn, version) values (900001, 'Só na réplica', 'Autor', 'replica-1', 0)");
+
+        Optional<Book> book = service.getById(900001L);
+
+        assertThat(book).hasValueSatisfying(found -> assertThat(found.getTitle()).isEqualTo("Só na réplica"));
+    }
+
+    @Test
+    @DisplayName("Deve gravar no primário")
+    public void writeToPrimaryTest() {
+        service.save(Book.builder().title("Novo").author("Autor").isbn("primario-1").build());
+
+        assertThat(primary.queryForObject("select count(*) from book where isbn = 'primario-1'", Integer.class)).isEqualTo(1);
+        assertThat(replica.queryForObject("select count(*) from book where isbn = 'primario-1'", Integer.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve procurar no primário o livro que ainda não chegou à réplica")
+    public void fallbackToPrimaryOnReplicaLagTest() {
+        Book saved = service.save(Book.builder().title("Recém-criado").author("Autor").isbn("primario-2").build());
+        replica.update("insert into book (id, title, author, isbn, version) values (900002, 'Só na réplica', 'Autor', 'replica-2', 0)");
+
+        Optional<Book> book = service.getById(saved.getId());
+        Map<Long, Book> books = service.getByIds(Arrays.asList(900002L, saved.getId(), 999999L));
+
+        assertThat(book).hasValueSatisfying(found -> assertThat(found.getTitle()).isEqualTo("Recém-criado"));
+        assertThat(books).containsOnlyKeys(900002L, saved.getId());
+    }
+
+    @Test
+    @DisplayName("Deve ler do primário o livro alterado há pouco, sem guardar em cache a versão atrasada da réplica")
+    public void readAfterWriteFromPrimaryTest() {
+        Book saved = service.save(Book.builder().title("Original").author("Autor").isbn("primario-3").build());
+        replica.update("insert into book (id, title, author, isbn, version) values (?, 'Original', 'Autor', 'primario-3', 0)",
+                saved.getId());
+        assertThat(service.getById(saved.getId())).hasValueSatisfying(found -> assertThat(found.getVersion()).isZero());
+
+        service.patch(saved.getId(), Book.builder().title("Alterado").version(0L).build());
+
+        assertThat(service.getById(saved.getId())).hasValueSatisfying(found -> {
+            assertThat(found.getTitle()).isEqualTo("Alterado");
+            assertThat(found.getVersion()).isEqualTo(1L);
+        });
+        assertThat(replica.queryForObject("select title from book where id = ?", String.class, saved.getId()))
+                .isEqualTo("Original");
+    }
+
+    @Test
+    @DisplayName("Deve responder versão desatualizada, e não livro inexistente, ao alterar com versão errada um livro que ainda não chegou à réplica")
+    public void stalePatchOfNewBookTest() {
+        Book saved = service.save(Book.builder().title("Recém-criado").author("Autor").isbn("primario-4").build());
+
+        Throwable exception = catchThrowable(() ->
+                service.patch(saved.getId(), Book.builder().title("Alterado").version(7L).build()));
+
+        assertThat(exception).isInstanceOf(OptimisticLockingFailureException.class);
+    }
+}
@@ -0,0 +1,70 @@
+package com.curso.tddrest.libraryapi.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class ReadWriteRoutingDataSourceTest {
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection1 = mock(Connection.class);
+    private final Connection replicaConnection2 = mock(Connection.class);
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica1 = mock(DataSource.class);
+    private final DataSource replica2 = mock(DataSource.class);
+    private final ReadWriteRoutingDataSource dataSource;
+
+    ReadWriteRoutingDataSourceTest() throws SQLException {
+        given(primary.getConnection()).willReturn(primaryConnection);
+        given(replica1.getConnection()).willReturn(replicaConnection1);
+        given(replica2.getConnection()).willReturn(replicaConnection2);
+        dataSource = new ReadWriteRoutingDataSource(primary, Arrays.asList(replica1, replica2));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    @DisplayName("Deve usar o primário fora de transações somente leitura")
+    public void writeGoesToPrimaryTest() throws SQLException {
+        assertThat(target()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    @DisplayName("Deve alternar entre as réplicas em transações somente leitura")
+    public void readOnlyGoesToReplicasTest() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(target()).isSameAs(replicaConnection1);
+        assertThat(target()).isSameAs(replicaConnection2);
+        assertThat(target()).isSameAs(replicaConnection1);
+    }
+
+    @Test
+    @DisplayName("Deve ler do primário quando nenhuma réplica entrega conexão")
+    public void fallbackToPrimaryWhenReplicasFailTest() throws SQLException {
+        given(replica1.getConnection()).willThrow(new SQLTransientConnectionException("fora do ar"));
+        given(replica2.getConnection()).willThrow(new SQLTransientConnectionException("fora do ar"));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(target()).isSameAs(primaryConnection);
+    }
+
+    private Connection target() throws SQLException {
+        return ((ConnectionProxy) dataSource.getConnection()).getTargetConnection();
+    }
+}
@@ -0,0 +1,296 @@
+package com.curso.tddrest.libraryapi.load;
+
+import com.curso.tddrest.libraryapi.model.batch.BookBatchResult;
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Teste de carga ponta a ponta: sobe a aplicação numa porta aleatória com H2 em memória, popula o catálogo
+ * e dispara um mix fixo de create/get/search/update/delete com concorrência constante. Reporta p50/p99 e
+ * requisições por segundo por endpoint (também em {@code target/load-test-report.json}) e falha se algum
+ * endpoint passar dos limites de {@code load-test.properties}.
+ * <p>
+ * Fica fora do {@code mvn test} normal pela tag {@code load}; rode com {@code ./mvnw -Pload-test test}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"logging.level.root=warn", "spring.devtools.restart.enabled=false"})
+public class BookLoadTest {
+
+    enum Operation {CREATE, GET, SEARCH, UPDATE, DELETE}
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    BookService service;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private Properties config;
+    private List<Long> seededIds;
+
+    @Test
+    @DisplayName("Deve manter latência e vazão de cada endpoint dentro dos limites sob carga mista")
+    public void mixedWorkloadTest() throws Exception {
+        config = loadConfig();
+        seededIds = seed(intConfig("load.seed-size"));
+        int concurrency = intConfig("load.concurrency");
+
+        run(concurrency, durationConfig("load.warmup"));
+        long start = System.nanoTime();
+        Map<Operation, Recorder> recorders = run(concurrency, durationConfig("load.duration"));
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        List<String> violations = report(recorders, elapsedSeconds);
+        assertThat(violations).as("endpoints fora dos limites").isEmpty();
+    }
+
+    private List<Long> seed(int size) {
+        List<Long> ids = new ArrayList<>(size);
+        List<Book> chunk = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            chunk.add(Book.builder().isbn("carga-" + i).title("Titulo " + i).author("Autor " + (i % 100)).build());
+            if (chunk.size() == 1000 || i == size - 1) {
+                for (BookBatchResult result : service.saveAll(chunk)) {
+                    ids.add(result.getBook().getId());
+                }
+                chunk = new ArrayList<>();
+            }
+        }
+        return ids;
+    }
+
+    private Map<Operation, Recorder> run(int concurrency, Duration duration) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Map<Operation, Recorder>>> workers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            int worker = i;
+            workers.add(executor.submit(() -> work(worker, deadline)));
+        }
+        Map<Operation, Recorder> recorders = newRecorders();
+        for (Future<Map<Operation, Recorder>> worker : workers) {
+            worker.get().forEach((operation, recorder) -> recorders.get(operation).merge(recorder));
+        }
+        executor.shutdown();
+        return recorders;
+    }
+
+    private Map<Operation, Recorder> newRecorders() {
+        Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder());
+        }
+        return recorders;
+    }
+
+    private Map<Operation, Recorder> work(int worker, long deadline) throws Exception {
+        Map<Operation, Recorder> recorders = newRecorders();
+        List<Long> created = new ArrayList<>();
+        int[] weights = Arrays.stream(Operation.values())
+                .mapToInt(operation -> intConfig("load.mix." + operation.name().toLowerCase()))
+                .toArray();
+        int totalWeight = Arrays.stream(weights).sum();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long sequence = 0;
+
+        while (System.nanoTime() < deadline) {
+            Operation operation = pick(weights, totalWeight, random.nextInt(totalWeight));
+            if (operation == Operation.DELETE && created.isEmpty()) {
+                operation = Operation.CREATE;
+            }
+            Long id = seededIds.get(random.nextInt(seededIds.size()));
+            HttpRequest request;
+            switch (operation) {
+                case CREATE:
+                    request = json(uri("/api/books"), "POST",
+                            book("Titulo novo", "Autor " + random.nextInt(100), "carga-" + worker + "-" + sequence++ + "-" + System.nanoTime()));
+                    break;
+                case GET:
+                    request = HttpRequest.newBuilder(uri("/api/books/" + id)).GET().build();
+                    break;
+                case SEARCH:
+                    request = HttpRequest.newBuilder(uri("/api/books?author=autor%20" + random.nextInt(100) + "&page=0&size=20")).GET().build();
+                    break;
+                case UPDATE:
+                    request = json(uri("/api/books/" + id), "PATCH", "{\"title\":\"Titulo alterado " + sequence++ + "\"}");
+                    break;
+                default:
+                    request = HttpRequest.newBuilder(uri("/api/books/" + created.remove(created.size() - 1))).DELETE().build();
+            }
+
+            long start = System.nanoTime();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            long latency = System.nanoTime() - start;
+            boolean ok = response.statusCode() / 100 == 2;
+            recorders.get(operation).record(latency, ok);
+            if (operation == Operation.CREATE && ok) {
+                created.add(objectMapper.readTree(response.body()).get("id").asLong());
+            }
+        }
+        return recorders;
+    }
+
+    private List<String> report(Map<Operation, Recorder> recorders, double elapsedSeconds) throws IOException {
+        List<String> violations = new ArrayList<>();
+        ObjectNode json = objectMapper.createObjectNode();
+        System.out.printf("%n%-8s %10s %10s %10s %10s %8s%n", "endpoint", "requests", "rps", "p50 ms", "p99 ms", "errors");
+        for (Operation operation : Operation.values()) {
+            Recorder recorder = recorders.get(operation);
+            String name = operation.name().toLowerCase();
+            double rps = recorder.count() / elapsedSeconds;
+            double p50 = recorder.percentileMillis(0.50);
+            double p99 = recorder.percentileMillis(0.99);
+            double errorRate = recorder.count() == 0 ? 0 : (double) recorder.errors() / recorder.count();
+            System.out.printf("%-8s %10d %10.1f %10.2f %10.2f %8d%n", name, recorder.count(), rps, p50, p99, recorder.errors());
+
+            json.putObject(name)
+                    .put("requests", recorder.count())
+                    .put("rps", rps)
+                    .put("p50Millis", p50)
+                    .put("p99Millis", p99)
+                    .put("errors", recorder.errors());
+
+            double maxP99 = Double.parseDouble(config.getProperty("load.threshold." + name + ".max-p99-ms"));
+            double minRps = Double.parseDouble(config.getProperty("load.threshold." + name + ".min-rps"));
+            double maxErrorRate = Double.parseDouble(config.getProperty("load.threshold.max-error-rate"));
+            if (p99 > maxP99) {
+                violations.add(String.format("%s: p99 %.2f ms > %.2f ms", name, p99, maxP99));
+            }
+            if (rps < minRps) {
+                violations.add(String.format("%s: %.1f rps < %.1f rps", name, rps, minRps));
+            }
+            if (errorRate > maxErrorRate) {
+                violations.add(String.format("%s: %.2f%% de erros", name, errorRate * 100));
+            }
+        }
+        Path output = Paths.get("target", "load-test-report.json");
+        Files.createDirectories(output.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), json);
+        return violations;
+    }
+
+    private Operation pick(int[] weights, int totalWeight, int draw) {
+        for (int i = 0; i < weights.length; i++) {
+            draw -= weights[i];
+            if (draw < 0) {
+                return Operation.values()[i];
+            }
+        }
+        return Operation.values()[weights.length - 1];
+    }
+
+    private HttpRequest json(URI uri, String method, String body) {
+        return HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private String book(String title, String author, String isbn) {
+        return "{\"title\":\"" + title + "\",\"author\":\"" + author + "\",\"isbn\":\"" + isbn + "\"}";
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    static Properties loadConfig() {
+        Properties properties = new Properties();
+        try (InputStream in = BookLoadTest.class.getResourceAsStream("/load-test.properties")) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.getProperties().stringPropertyNames().stream()
+                .filter(key -> key.startsWith("load."))
+                .forEach(key -> properties.setProperty(key, System.getProperty(key)));
+        return properties;
+    }
+
+    private int intConfig(String key) {
+        return Integer.parseInt(config.getProperty(key));
+    }
+
+    private Duration durationConfig(String key) {
+        return DurationStyle.detectAndParse(config.getProperty(key));
+    }
+
+    /**
+     * Latências de uma operação. Cada thread tem os seus, sem sincronização; no fim são juntados.
+     */
+    static class Recorder {
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        void record(long nanos, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void merge(Recorder other) {
+            latencies = Arrays.copyOf(latencies, count + other.count);
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            errors += other.errors;
+        }
+
+        int count() {
+            return count;
+        }
+
+        int errors() {
+            return errors;
+        }
+
+        double percentileMillis(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * count) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+}
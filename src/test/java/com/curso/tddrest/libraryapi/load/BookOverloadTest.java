@@ -0,0 +1,222 @@
+package com.curso.tddrest.libraryapi.load;
+
+import com.curso.tddrest.libraryapi.model.batch.BookBatchResult;
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sobe a concorrência de leituras em degraus ({@code load.overload.levels}) além do que a aplicação consegue
+ * atender, com clientes que não esperam entre requisições (só respeitam o {@code Retry-After} de um 503), e mede
+ * o goodput: respostas 2xx que chegam dentro do prazo do cliente. Com o limite adaptativo de concorrência o
+ * excesso recebe 503 na hora e o goodput depois do pico deve se manter perto dele, em vez de desabar com todas
+ * as requisições estourando o prazo.
+ * <p>
+ * Rode com {@code ./mvnw -Pload-test test -Dtest=BookOverloadTest}; com {@code -Dlibrary.limiter.enabled=false}
+ * dá para ver o comportamento sem o limite. Grava os degraus em {@code target/overload-test-report.json}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"logging.level.root=warn", "spring.devtools.restart.enabled=false"})
+public class BookOverloadTest {
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    BookService service;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private Properties config;
+    private List<Long> seededIds;
+    private Duration deadline;
+
+    @Test
+    @DisplayName("Deve manter o goodput das leituras perto do pico com a concorrência acima da saturação")
+    public void goodputPastSaturationTest() throws Exception {
+        config = BookLoadTest.loadConfig();
+        seededIds = seed(Integer.parseInt(config.getProperty("load.seed-size")));
+        deadline = duration("load.overload.deadline");
+        int[] levels = Arrays.stream(config.getProperty("load.overload.levels").split(","))
+                .mapToInt(level -> Integer.parseInt(level.trim()))
+                .toArray();
+
+        List<Step> steps = new ArrayList<>();
+        for (int level : levels) {
+            run(level, duration("load.overload.warmup"));
+            steps.add(run(level, duration("load.overload.step")));
+        }
+
+        report(levels, steps);
+        double minRatio = Double.parseDouble(config.getProperty("load.overload.min-goodput-ratio"));
+        int peak = 0;
+        for (int i = 1; i < steps.size(); i++) {
+            if (steps.get(i).goodput() > steps.get(peak).goodput()) {
+                peak = i;
+            }
+        }
+        for (int i = peak + 1; i < steps.size(); i++) {
+            assertThat(steps.get(i).goodput())
+                    .as("goodput com %d clientes contra o pico de %d clientes", levels[i], levels[peak])
+                    .isGreaterThanOrEqualTo(minRatio * steps.get(peak).goodput());
+        }
+    }
+
+    private List<Long> seed(int size) {
+        List<Long> ids = new ArrayList<>(size);
+        List<Book> chunk = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            chunk.add(Book.builder().isbn("sobrecarga-" + i).title("Titulo " + i).author("Autor " + (i % 100)).build());
+            if (chunk.size() == 1000 || i == size - 1) {
+                for (BookBatchResult result : service.saveAll(chunk)) {
+                    ids.add(result.getBook().getId());
+                }
+                chunk = new ArrayList<>();
+            }
+        }
+        return ids;
+    }
+
+    private Step run(int concurrency, Duration duration) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        List<Future<Step>> workers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(executor.submit(() -> work(end)));
+        }
+        Step total = new Step();
+        for (Future<Step> worker : workers) {
+            total.merge(worker.get());
+        }
+        executor.shutdown();
+        total.elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        return total;
+    }
+
+    private Step work(long end) throws Exception {
+        Step step = new Step();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < end) {
+            String path = random.nextBoolean()
+                    ? "/api/books/" + seededIds.get(random.nextInt(seededIds.size()))
+                    : "/api/books?author=autor%20" + random.nextInt(100) + "&page=0&size=20";
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                    .timeout(deadline)
+                    .GET()
+                    .build();
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                step.record(response.statusCode(), System.nanoTime() - start);
+                backOff(response, end);
+            } catch (HttpTimeoutException e) {
+                step.timeouts++;
+            } catch (IOException e) {
+                step.failures++;
+            }
+        }
+        return step;
+    }
+
+    /**
+     * Cliente bem-comportado: depois de um 503 espera o {@code Retry-After} antes de tentar de novo.
+     */
+    private void backOff(HttpResponse<Void> response, long end) throws InterruptedException {
+        if (response.statusCode() != 503) {
+            return;
+        }
+        long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1) * 1_000_000_000L;
+        long wait = Math.min(retryAfter, end - System.nanoTime());
+        if (wait > 0) {
+            Thread.sleep(wait / 1_000_000);
+        }
+    }
+
+    private void report(int[] levels, List<Step> steps) throws IOException {
+        ArrayNode json = objectMapper.createArrayNode();
+        System.out.printf("%n%8s %12s %12s %12s %12s %12s%n", "clientes", "goodput rps", "503 rps", "timeouts", "outros", "p99 2xx ms");
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            double p99 = step.ok.percentileMillis(0.99);
+            System.out.printf("%8d %12.1f %12.1f %12d %12d %12.2f%n", levels[i], step.goodput(),
+                    step.rejected / step.elapsedSeconds, step.timeouts, step.failures, p99);
+            json.addObject()
+                    .put("clients", levels[i])
+                    .put("goodputRps", step.goodput())
+                    .put("rejectedRps", step.rejected / step.elapsedSeconds)
+                    .put("timeouts", step.timeouts)
+                    .put("failures", step.failures)
+                    .put("okP99Millis", p99);
+        }
+        Path output = Paths.get("target", "overload-test-report.json");
+        Files.createDirectories(output.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), json);
+    }
+
+    private Duration duration(String key) {
+        return DurationStyle.detectAndParse(config.getProperty(key));
+    }
+
+    /**
+     * Resultado de um degrau. Cada thread tem o seu, sem sincronização; no fim são juntados.
+     */
+    static class Step {
+        private final BookLoadTest.Recorder ok = new BookLoadTest.Recorder();
+        private int rejected;
+        private int timeouts;
+        private int failures;
+        private double elapsedSeconds;
+
+        void record(int status, long nanos) {
+            if (status / 100 == 2) {
+                ok.record(nanos, true);
+            } else if (status == 503) {
+                rejected++;
+            } else {
+                failures++;
+            }
+        }
+
+        void merge(Step other) {
+            ok.merge(other.ok);
+            rejected += other.rejected;
+            timeouts += other.timeouts;
+            failures += other.failures;
+        }
+
+        double goodput() {
+            return ok.count() / elapsedSeconds;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.curso.tddrest.libraryapi.mapper;
+
+import com.curso.tddrest.libraryapi.mapper.impl.BookMapperImpl;
+import com.curso.tddrest.libraryapi.model.dto.request.BookFilter;
+import com.curso.tddrest.libraryapi.model.dto.request.BookRequest;
+import com.curso.tddrest.libraryapi.model.dto.response.BookResponse;
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookMapperTest {
+
+    BookMapper mapper = new BookMapperImpl();
+
+    @Test
+    @DisplayName("Deve converter requisição em entidade")
+    public void requestToEntityTest() {
+        BookRequest request = BookRequest.builder()
+                .author("Autor Famoso")
+                .title("Titulo Bacana")
+                .isbn("123")
+                .build();
+
+        Book book = mapper.toEntity(request);
+
+        assertThat(book.getId()).isNull();
+        assertThat(book.getAuthor()).isEqualTo(request.getAuthor());
+        assertThat(book.getTitle()).isEqualTo(request.getTitle());
+        assertThat(book.getIsbn()).isEqualTo(request.getIsbn());
+    }
+
+    @Test
+    @DisplayName("Deve converter filtro em entidade mantendo campos nulos")
+    public void filterToEntityTest() {
+        BookFilter filter = BookFilter.builder().title("Bacana").build();
+
+        Book book = mapper.toEntity(filter);
+
+        assertThat(book.getTitle()).isEqualTo("Bacana");
+        assertThat(book.getAuthor()).isNull();
+        assertThat(book.getIsbn()).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve converter lista de entidades em respostas na mesma ordem")
+    public void entitiesToResponsesTest() {
+        Book first = Book.builder().id(1L).author("Autor 1").title("Titulo 1").isbn("1").version(0L).build();
+        Book second = Book.builder().id(2L).author("Autor 2").title("Titulo 2").isbn("2").build();
+
+        List<BookResponse> responses = mapper.toResponse(Arrays.asList(first, second));
+
+        assertThat(responses).containsExactly(
+                new BookResponse(1L, "Titulo 1", "Autor 1", "1", 0L),
+                new BookResponse(2L, "Titulo 2", "Autor 2", "2", null));
+    }
+}
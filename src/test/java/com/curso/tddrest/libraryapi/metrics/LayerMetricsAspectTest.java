@@ -0,0 +1,53 @@
+package com.curso.tddrest.libraryapi.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+public class LayerMetricsAspectTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Test
+    @DisplayName("Deve expor no formato Prometheus as métricas de endpoints, serviço, repositório, pool, Hibernate e limite de concorrência")
+    public void prometheusScrapeTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Titulo\",\"author\":\"Autor\",\"isbn\":\"metricas-1\"}"))
+                .andExpect(status().isCreated());
+        mvc.perform(MockMvcRequestBuilders.get("/api/books?title=Ti"))
+                .andExpect(status().isOk());
+
+        String scrape = mvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .contains("http_server_requests_seconds_bucket{exception=\"None\",method=\"POST\"")
+                .contains("library_service_seconds_count{exception=\"none\",method=\"save(Book)\"")
+                .contains("library_service_seconds_bucket{exception=\"none\",method=\"find(Book,Pageable)\"")
+                .contains("library_repository_seconds_count{exception=\"none\",method=\"saveAndFlush(Object)\"")
+                .contains("library_repository_seconds_count{exception=\"none\",method=\"findAll(Example,Pageable)\"")
+                .contains("hikaricp_connections_active")
+                .contains("hibernate_statements_total")
+                .containsPattern("hibernate_second_level_cache_requests_total\\{[^}]*region=\"book\",result=\"miss\"")
+                .contains("hibernate_cache_query_requests_total")
+                .contains("cache_gets_total{cache=\"books\"")
+                .contains("library_limiter_limit{name=\"read\"")
+                .contains("library_limiter_inflight{name=\"write\"")
+                .contains("library_limiter_rejected_total{name=\"read\"");
+    }
+}
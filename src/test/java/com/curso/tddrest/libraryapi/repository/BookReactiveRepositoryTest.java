@@ -0,0 +1,120 @@
+package com.curso.tddrest.libraryapi.repository;
+
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * O repositório R2DBC grava no mesmo banco que o JPA, então os testes conferem pelo {@link BookRepository}.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+public class BookReactiveRepositoryTest {
+
+    @Autowired
+    BookReactiveRepository repository;
+
+    @Autowired
+    BookRepository jpaRepository;
+
+    @AfterEach
+    public void tearDown() {
+        jpaRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Deve inserir um livro visível pelo repositório JPA, com id da sequência e versão zero")
+    public void insertTest() {
+        Book saved = repository.insert(newBook("123")).block();
+
+        assertThat(saved.getId()).isNotNull();
+        assertThat(saved.getVersion()).isZero();
+        assertThat(jpaRepository.findById(saved.getId())).hasValueSatisfying(book -> {
+            assertThat(book.getIsbn()).isEqualTo("123");
+            assertThat(book.getVersion()).isZero();
+        });
+    }
+
+    @Test
+    @DisplayName("Não deve reaproveitar ids já reservados pelo Hibernate")
+    public void insertAlongsideJpaTest() {
+        Book jpa = jpaRepository.save(newBook("jpa-1"));
+        Book reactive = repository.insert(newBook("r2dbc-1")).block();
+        Book nextJpa = jpaRepository.save(newBook("jpa-2"));
+
+        assertThat(Arrays.asList(jpa.getId(), reactive.getId(), nextJpa.getId())).doesNotHaveDuplicates();
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar isbn duplicado pelo índice único")
+    public void insertDuplicatedIsbnTest() {
+        jpaRepository.save(newBook("123"));
+
+        StepVerifier.create(repository.insert(newBook("123")))
+                .expectError(DataIntegrityViolationException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Deve atualizar o livro só se ele ainda estiver na versão informada")
+    public void conditionalUpdateTest() {
+        Book saved = repository.insert(newBook("123")).block();
+        Book changes = Book.builder().id(saved.getId()).version(0L).title("Novo").author("Autor").isbn("123").build();
+
+        StepVerifier.create(repository.update(changes)).expectNext(1).verifyComplete();
+        StepVerifier.create(repository.update(changes)).expectNext(0).verifyComplete();
+
+        StepVerifier.create(repository.findById(saved.getId()))
+                .assertNext(book -> {
+                    assertThat(book.getTitle()).isEqualTo("Novo");
+                    assertThat(book.getVersion()).isEqualTo(1L);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Deve buscar livros pelos termos do filtro, paginados e na ordem pedida")
+    public void findMatchingTest() {
+        jpaRepository.saveAll(Arrays.asList(
+                Book.builder().isbn("1").title("Java Moderno").author("Ana").build(),
+                Book.builder().isbn("2").title("Aprenda java").author("Bruno").build(),
+                Book.builder().isbn("3").title("Python").author("Ana").build(),
+                Book.builder().isbn("4").title("100%_Java").author("Carla").build()));
+
+        StepVerifier.create(repository.findMatching(Book.builder().title("JAVA").build(),
+                PageRequest.of(0, 2, Sort.by("title"))))
+                .assertNext(book -> assertThat(book.getTitle()).isEqualTo("100%_Java"))
+                .assertNext(book -> assertThat(book.getTitle()).isEqualTo("Aprenda java"))
+                .verifyComplete();
+
+        StepVerifier.create(repository.findMatching(Book.builder().title("%_").build(), PageRequest.of(0, 10)))
+                .assertNext(book -> assertThat(book.getIsbn()).isEqualTo("4"))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Deve deletar um livro e indicar quando ele não existe")
+    public void deleteByIdTest() {
+        Book saved = repository.insert(newBook("123")).block();
+
+        StepVerifier.create(repository.deleteById(saved.getId())).expectNext(1).verifyComplete();
+        StepVerifier.create(repository.deleteById(saved.getId())).expectNext(0).verifyComplete();
+        assertThat(jpaRepository.existsById(saved.getId())).isFalse();
+    }
+
+    private Book newBook(String isbn) {
+        return Book.builder().isbn(isbn).title("Titulo").author("Autor").build();
+    }
+}
@@ -1,22 +1,36 @@
 package com.curso.tddrest.libraryapi.repository;
 
+import com.curso.tddrest.libraryapi.config.HibernateCacheConfig;
 import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.model.pagination.BookKeyset;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @DataJpaTest
+@Import(HibernateCacheConfig.class)
 public class BookRepositoryTest     {
 
     @Autowired
@@ -59,6 +73,157 @@ public class BookRepositoryTest     {
         assertThat(exists).isFalse();
     }
 
+    @Test
+    @DisplayName("Deve recusar dois livros com o mesmo isbn pelo índice único")
+    public void uniqueIsbnTest(){
+        repository.saveAndFlush(Book.builder().isbn("123").title("Titulo Bacana").author("Autor Famoso").build());
+
+        Throwable exception = catchThrowable(() -> repository.saveAndFlush(
+                Book.builder().isbn("123").title("Outro Titulo").author("Outro Autor").build()));
+
+        assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(((DataIntegrityViolationException) exception).getMostSpecificCause().getMessage())
+                .containsIgnoringCase(Book.ISBN_INDEX);
+    }
+
+    @Test
+    @DisplayName("Deve deletar pelo id retornando a quantidade de linhas removidas")
+    public void deleteBookByIdTest(){
+        Book book = entityManager.persist(Book.builder().isbn("123").title("Titulo Bacana").author("Autor Famoso").build());
+        entityManager.flush();
+
+        assertThat(repository.deleteBookById(book.getId())).isEqualTo(1);
+        assertThat(repository.deleteBookById(book.getId())).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Deve deletar vários livros pelo id num único comando")
+    public void deleteBooksByIdsTest(){
+        Book first = entityManager.persist(Book.builder().isbn("1").title("Titulo 1").author("Autor 1").build());
+        Book second = entityManager.persist(Book.builder().isbn("2").title("Titulo 2").author("Autor 2").build());
+        Book kept = entityManager.persist(Book.builder().isbn("3").title("Titulo 3").author("Autor 3").build());
+        entityManager.flush();
+
+        int deleted = repository.deleteBooksByIds(Arrays.asList(first.getId(), second.getId(), -1L));
+        entityManager.clear();
+
+        assertThat(deleted).isEqualTo(2);
+        assertThat(repository.findAll()).extracting(Book::getId).containsExactly(kept.getId());
+    }
+
+    @Test
+    @DisplayName("Deve atualizar só as colunas informadas")
+    public void patchTest(){
+        Book book = entityManager.persist(Book.builder().isbn("123").title("Titulo Bacana").author("Autor Famoso").build());
+        entityManager.flush();
+        entityManager.clear();
+
+        int updated = repository.patch(book.getId(), Book.builder().title("Novo Titulo").build());
+        int missing = repository.patch(-1L, Book.builder().title("Novo Titulo").build());
+        Book patched = entityManager.find(Book.class, book.getId());
+
+        assertThat(updated).isEqualTo(1);
+        assertThat(missing).isEqualTo(0);
+        assertThat(patched.getTitle()).isEqualTo("Novo Titulo");
+        assertThat(patched.getAuthor()).isEqualTo("Autor Famoso");
+        assertThat(patched.getIsbn()).isEqualTo("123");
+        assertThat(patched.getVersion()).isEqualTo(book.getVersion() + 1);
+    }
+
+    @Test
+    @DisplayName("Deve atualizar só se a linha ainda estiver na versão esperada")
+    public void conditionalPatchTest(){
+        Book book = entityManager.persist(Book.builder().isbn("123").title("Titulo Bacana").author("Autor Famoso").build());
+        entityManager.flush();
+        entityManager.clear();
+        Long version = book.getVersion();
+
+        int first = repository.patch(book.getId(), Book.builder().title("Primeiro").version(version).build());
+        int stale = repository.patch(book.getId(), Book.builder().title("Segundo").version(version).build());
+
+        assertThat(first).isEqualTo(1);
+        assertThat(stale).isEqualTo(0);
+        assertThat(entityManager.find(Book.class, book.getId()).getTitle()).isEqualTo("Primeiro");
+    }
+
+    @Test
+    @DisplayName("Deve retornar apenas os isbns já cadastrados")
+    public void findExistingIsbnsTest(){
+        entityManager.persist(Book.builder().isbn("123").title("Titulo Bacana").author("Autor Famoso").build());
+        entityManager.persist(Book.builder().isbn("456").title("Outro Titulo").author("Outro Autor").build());
+
+        Set<String> existing = repository.findExistingIsbns(Arrays.asList("123", "789"));
+
+        assertThat(existing).containsExactly("123");
+    }
+
+    @Test
+    @DisplayName("Deve inserir livros em lote")
+    public void insertAllTest(){
+        List<Book> books = Arrays.asList(
+                Book.builder().isbn("1").title("Titulo 1").author("Autor 1").build(),
+                Book.builder().isbn("2").title("Titulo 2").author("Autor 2").build(),
+                Book.builder().isbn("3").title("Titulo 3").author("Autor 3").build());
+
+        repository.insertAll(books);
+
+        assertThat(books).allSatisfy(book -> assertThat(book.getId()).isNotNull());
+        assertThat(repository.count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve paginar por chave desempatando títulos iguais pelo id")
+    public void findAfterTest(){
+        Book first = entityManager.persist(Book.builder().isbn("1").title("Mesmo Titulo").author("Autor 1").build());
+        Book second = entityManager.persist(Book.builder().isbn("2").title("Mesmo Titulo").author("Autor 2").build());
+        Book third = entityManager.persist(Book.builder().isbn("3").title("Outro Titulo").author("Autor 3").build());
+        entityManager.persist(Book.builder().isbn("4").title("Sem relação").author("Autor 4").build());
+        Book filter = Book.builder().title("TITULO").build();
+
+        List<Book> firstPage = repository.findAfter(filter, "title", null, 2);
+        List<Book> secondPage = repository.findAfter(filter, "title",
+                BookKeyset.after("title", firstPage.get(1)), 2);
+
+        assertThat(firstPage).containsExactly(first, second);
+        assertThat(secondPage).containsExactly(third);
+    }
+
+    @Test
+    @DisplayName("Deve buscar uma fatia filtrada sabendo se há próxima página")
+    public void findSliceTest(){
+        entityManager.persist(Book.builder().isbn("1").title("Titulo A").author("Autor 1").build());
+        entityManager.persist(Book.builder().isbn("2").title("Titulo B").author("Autor 2").build());
+        entityManager.persist(Book.builder().isbn("3").title("Outro").author("Autor 3").build());
+        Book filter = Book.builder().title("titulo").build();
+
+        Slice<Book> first = repository.findSlice(filter, PageRequest.of(0, 1, Sort.by("title")));
+        Slice<Book> second = repository.findSlice(filter, PageRequest.of(1, 1, Sort.by("title")));
+
+        assertThat(first.getContent()).extracting(Book::getTitle).containsExactly("Titulo A");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).extracting(Book::getTitle).containsExactly("Titulo B");
+        assertThat(second.hasNext()).isFalse();
+        assertThat(repository.countMatching(filter)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve ler os livros filtrados em fluxo, em ordem de id e desanexados")
+    public void streamMatchingTest(){
+        Book first = entityManager.persist(Book.builder().isbn("1").title("Titulo A").author("Autor 1").build());
+        entityManager.persist(Book.builder().isbn("2").title("Outro").author("Autor 2").build());
+        Book third = entityManager.persist(Book.builder().isbn("3").title("Titulo B").author("Autor 3").build());
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Book> books;
+        try (Stream<Book> stream = repository.streamMatching(Book.builder().title("titulo").build())) {
+            books = stream.collect(Collectors.toList());
+        }
+
+        assertThat(books).extracting(Book::getId).containsExactly(first.getId(), third.getId());
+        assertThat(books).noneMatch(book -> entityManager.getEntityManager().contains(book));
+    }
+
     @Test
     @DisplayName("Deve obter um livro por id")
     public void findByIdTest(){
@@ -0,0 +1,163 @@
+package com.curso.tddrest.libraryapi.repository;
+
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.service.BookReactiveService;
+import com.curso.tddrest.libraryapi.service.BookService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * O cache de segundo nível só recebe dados de transações confirmadas, por isso este teste sobe a aplicação
+ * inteira em vez de usar {@code @DataJpaTest}, que desfaz cada teste.
+ */
+@SpringBootTest
+public class BookSecondLevelCacheTest {
+
+    @Autowired
+    BookRepository repository;
+
+    @Autowired
+    BookService service;
+
+    @Autowired
+    BookReactiveService reactiveService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Deve ler o livro por id do cache de segundo nível, sem consultar o banco")
+    public void findByIdFromCacheTest() {
+        Book saved = service.save(book("l2-id"));
+        statistics.clear();
+
+        assertThat(repository.findById(saved.getId())).isPresent();
+        assertThat(repository.findById(saved.getId())).isPresent();
+
+        assertThat(statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getHitCount()).isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve guardar existsByIsbn no cache de consultas e invalidá-lo ao cadastrar o ISBN")
+    public void existsByIsbnQueryCacheTest() {
+        assertThat(repository.existsByIsbn("l2-exists")).isFalse();
+        assertThat(repository.existsByIsbn("l2-exists")).isFalse();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+        service.save(book("l2-exists"));
+
+        assertThat(repository.existsByIsbn("l2-exists")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve guardar a busca por Example no cache de consultas e invalidá-la ao atualizar e excluir")
+    public void findByExampleQueryCacheTest() {
+        Book saved = service.save(book("l2-example"));
+        Example<Book> example = Example.of(Book.builder().isbn("l2-example").build(),
+                ExampleMatcher.matching().withIgnoreNullValues());
+
+        assertThat(repository.findAll(example, PageRequest.of(0, 10)).getContent()).hasSize(1);
+        statistics.clear();
+        assertThat(repository.findAll(example, PageRequest.of(0, 10)).getContent())
+                .extracting(Book::getTitle).containsExactly("Titulo");
+        assertThat(statistics.getQueryCacheHitCount()).isPositive();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        service.patch(saved.getId(), Book.builder().title("Alterado").build());
+        assertThat(repository.findAll(example, PageRequest.of(0, 10)).getContent())
+                .extracting(Book::getTitle).containsExactly("Alterado");
+
+        service.deleteById(saved.getId());
+        assertThat(repository.findAll(example, PageRequest.of(0, 10)).getContent()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve refletir no cache de segundo nível as atualizações e exclusões pelo JPA e pela API v2")
+    public void invalidateOnWritesTest() {
+        Book saved = service.save(book("l2-writes"));
+        repository.findById(saved.getId());
+
+        Book changed = repository.findById(saved.getId()).get();
+        changed.setTitle("Pelo JPA");
+        service.update(changed);
+        assertThat(repository.findById(saved.getId())).get().extracting(Book::getTitle).isEqualTo("Pelo JPA");
+
+        Book viaV2 = repository.findById(saved.getId()).get();
+        viaV2.setTitle("Pela v2");
+        viaV2.setVersion(null);
+        reactiveService.update(viaV2).block();
+        assertThat(repository.findById(saved.getId())).get().extracting(Book::getTitle).isEqualTo("Pela v2");
+
+        reactiveService.deleteById(saved.getId()).block();
+        assertThat(repository.findById(saved.getId())).isEmpty();
+        assertThat(repository.existsByIsbn("l2-writes")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve despejar só o livro alterado ou excluído, mantendo os demais no cache de segundo nível")
+    public void evictOnlyWrittenBookTest() {
+        Book first = service.save(book("l2-first"));
+        Book second = service.save(book("l2-second"));
+        repository.findById(first.getId());
+        repository.findById(second.getId());
+
+        service.patch(first.getId(), Book.builder().title("Alterado").build());
+        statistics.clear();
+        assertThat(repository.findById(second.getId())).isPresent();
+        assertThat(statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(repository.findById(first.getId())).get().extracting(Book::getTitle).isEqualTo("Alterado");
+
+        service.deleteById(first.getId());
+        statistics.clear();
+        assertThat(repository.findById(second.getId())).isPresent();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(repository.findById(first.getId())).isEmpty();
+
+        service.deleteAllById(Arrays.asList(first.getId(), second.getId()));
+        assertThat(repository.findById(second.getId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve exportar sem guardar os livros lidos no cache de segundo nível")
+    public void exportBypassesCacheTest() {
+        Book saved = service.save(book("l2-export"));
+        entityManagerFactory.getCache().evict(Book.class, saved.getId());
+        statistics.clear();
+
+        List<Book> exported = new ArrayList<>();
+        service.export(Book.builder().isbn("l2-export").build(), exported::add);
+
+        assertThat(exported).extracting(Book::getId).containsExactly(saved.getId());
+        assertThat(statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getPutCount()).isZero();
+        assertThat(entityManagerFactory.getCache().contains(Book.class, saved.getId())).isFalse();
+    }
+
+    private static Book book(String isbn) {
+        return Book.builder().isbn(isbn).title("Titulo").author("Autor").build();
+    }
+}
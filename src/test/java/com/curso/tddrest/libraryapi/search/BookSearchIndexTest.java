@@ -0,0 +1,119 @@
+package com.curso.tddrest.libraryapi.search;
+
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BookSearchIndexTest {
+
+    BookSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        BookRepository repository = mock(BookRepository.class);
+        when(repository.streamIndexedBooks()).thenReturn(Stream.of(
+                new IndexedBook(1L, "Dom Casmurro", "Machado de Assis", "978-85-01"),
+                new IndexedBook(2L, "Memórias Póstumas de Brás Cubas", "Machado de Assis", "978-85-02"),
+                new IndexedBook(3L, "O Cortiço", "Aluísio Azevedo", "978-85-03")));
+        index = new BookSearchIndex(repository, true);
+        index.rebuild();
+    }
+
+    @Test
+    @DisplayName("Deve buscar por trecho do texto sem diferenciar maiúsculas")
+    public void searchContainingIgnoreCaseTest() {
+        Page<Long> result = search(Book.builder().author("MACHADO").build(), PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).containsExactly(1L, 2L);
+        assertThat(result.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve combinar os campos do filtro")
+    public void searchCombinedFieldsTest() {
+        Page<Long> result = search(Book.builder().author("machado").title("casmur").build(), PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Deve descartar candidatos que têm os trigramas mas não o termo")
+    public void searchDiscardsFalseCandidatesTest() {
+        Page<Long> result = search(Book.builder().title("domcas").build(), PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve paginar e ordenar pelos campos indexados")
+    public void searchSortedPageTest() {
+        Page<Long> result = search(Book.builder().isbn("978").build(),
+                PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "title")));
+
+        assertThat(result.getContent()).containsExactly(1L);
+        assertThat(result.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve aplicar atualização parcial mantendo os demais campos")
+    public void patchTest() {
+        index.patch(3L, Book.builder().author("Machado de Assis").build());
+
+        Page<Long> byAuthor = search(Book.builder().author("machado").build(), PageRequest.of(0, 10));
+        Page<Long> byTitle = search(Book.builder().title("cortiço").build(), PageRequest.of(0, 10));
+
+        assertThat(byAuthor.getContent()).containsExactly(1L, 2L, 3L);
+        assertThat(byTitle.getContent()).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Deve refletir inclusões, alterações e exclusões")
+    public void indexUpdatesTest() {
+        index.index(Book.builder().id(4L).title("Quincas Borba").author("Machado de Assis").isbn("978-85-04").build());
+        index.index(Book.builder().id(1L).title("Dom Casmurro").author("Anônimo").isbn("978-85-01").build());
+        index.delete(2L);
+
+        Page<Long> result = search(Book.builder().author("machado").build(), PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).containsExactly(4L);
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar a posição de um livro excluído sem misturar os documentos")
+    public void reuseDeletedSlotTest() {
+        index.delete(1L);
+        index.index(Book.builder().id(5L).title("Helena").author("Machado de Assis").isbn("978-85-05").build());
+
+        Page<Long> byOldTitle = search(Book.builder().title("casmurro").build(), PageRequest.of(0, 10));
+        Page<Long> byAuthor = search(Book.builder().author("machado").build(),
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "id")));
+
+        assertThat(byOldTitle.getContent()).isEmpty();
+        assertThat(byAuthor.getContent()).containsExactly(5L, 2L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Não deve responder quando nenhum termo tem tamanho indexável")
+    public void shortTermsFallBackTest() {
+        Optional<Page<Long>> result = index.search(Book.builder().title("do").build(), PageRequest.of(0, 10));
+
+        assertThat(result).isEmpty();
+    }
+
+    private Page<Long> search(Book filter, PageRequest pageRequest) {
+        return index.search(filter, pageRequest).orElseThrow(AssertionError::new);
+    }
+}
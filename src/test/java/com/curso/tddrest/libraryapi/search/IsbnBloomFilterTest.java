@@ -0,0 +1,95 @@
+package com.curso.tddrest.libraryapi.search;
+
+import com.curso.tddrest.libraryapi.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IsbnBloomFilterTest {
+
+    BookRepository repository;
+    SimpleMeterRegistry registry;
+    IsbnBloomFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        repository = mock(BookRepository.class);
+        registry = new SimpleMeterRegistry();
+        filter = new IsbnBloomFilter(repository, registry, 10_000, 0.01);
+    }
+
+    @Test
+    @DisplayName("Deve responder talvez para qualquer ISBN enquanto não foi carregado")
+    public void notLoadedTest() {
+        assertThat(filter.mightContain("978-85-01")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve reconhecer ISBNs carregados e inseridos depois da carga")
+    public void loadAndPutTest() {
+        when(repository.streamIsbns()).thenReturn(Stream.of("978-85-01", "978-85-02"));
+        filter.load();
+        filter.put("978-85-03");
+
+        assertThat(filter.mightContain("978-85-01")).isTrue();
+        assertThat(filter.mightContain("978-85-02")).isTrue();
+        assertThat(filter.mightContain("978-85-03")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve manter a taxa de falso positivo perto da configurada")
+    public void falsePositiveRateTest() {
+        when(repository.streamIsbns()).thenReturn(IntStream.range(0, 10_000).mapToObj(i -> "978-" + i));
+        filter.load();
+
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> filter.mightContain("979-" + i))
+                .count();
+
+        assertThat(falsePositives).isLessThan(300);
+        assertThat(filter.expectedFpp()).isBetween(0.005, 0.02);
+    }
+
+    @Test
+    @DisplayName("Deve consultar o banco só com os ISBNs talvez presentes e expor as métricas")
+    public void existingMetricsTest() {
+        when(repository.streamIsbns()).thenReturn(IntStream.range(0, 10_000).mapToObj(i -> "978-" + i));
+        filter.load();
+        List<String> isbns = IntStream.range(0, 1_000).mapToObj(i -> "979-" + i).collect(Collectors.toList());
+        List<String> checked = new ArrayList<>();
+
+        Set<String> existing = filter.existing(Arrays.asList("978-1", "978-1", "978-2"), candidates -> {
+            checked.addAll(candidates);
+            return Collections.singleton("978-1");
+        });
+        filter.existing(isbns, candidates -> {
+            checked.addAll(candidates);
+            return Collections.emptySet();
+        });
+
+        double absent = registry.get("library.isbn.filter.checks").tag("result", "absent").counter().count();
+        double maybe = registry.get("library.isbn.filter.checks").tag("result", "maybe").counter().count();
+        double falsePositives = registry.get("library.isbn.filter.false.positives").counter().count();
+        assertThat(existing).containsExactly("978-1");
+        assertThat(checked).startsWith("978-1", "978-2").doesNotHaveDuplicates();
+        assertThat(absent + maybe).isEqualTo(1_002);
+        assertThat(maybe).isEqualTo(checked.size());
+        assertThat(falsePositives).isEqualTo(maybe - 1);
+        assertThat(absent).isGreaterThan(900);
+        assertThat(registry.get("library.isbn.filter.memory").gauge().value()).isEqualTo(filter.memoryBytes());
+    }
+}
@@ -0,0 +1,164 @@
+package com.curso.tddrest.libraryapi.service;
+
+import com.curso.tddrest.libraryapi.config.CacheConfig;
+import com.curso.tddrest.libraryapi.datasource.ReplicaLagFallback;
+import com.curso.tddrest.libraryapi.exception.BusinessException;
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.repository.BookReactiveRepository;
+import com.curso.tddrest.libraryapi.repository.BookSecondLevelCache;
+import com.curso.tddrest.libraryapi.search.BookSearchIndex;
+import com.curso.tddrest.libraryapi.search.IsbnBloomFilter;
+import com.curso.tddrest.libraryapi.service.impl.BookReactiveServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class BookReactiveServiceTest {
+    BookReactiveService service;
+
+    @MockBean
+    BookReactiveRepository repository;
+
+    @MockBean
+    BookSearchIndex searchIndex;
+
+    @MockBean
+    IsbnBloomFilter isbnFilter;
+
+    @MockBean
+    BookSecondLevelCache secondLevelCache;
+
+    ConcurrentMapCacheManager cacheManager;
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(CacheConfig.BOOKS);
+        service = new BookReactiveServiceImpl(repository, searchIndex, isbnFilter, cacheManager, secondLevelCache,
+                ReplicaLagFallback.disabled());
+    }
+
+    @Test
+    @DisplayName("Deve salvar um livro e registrá-lo no índice de busca e no filtro de ISBN")
+    public void saveBookTest() {
+        Book saved = savedBook(0L);
+        when(repository.insert(any(Book.class))).thenReturn(Mono.just(saved));
+
+        StepVerifier.create(service.save(Book.builder().isbn("123").title("Titulo").author("Autor").build()))
+                .expectNext(saved)
+                .verifyComplete();
+
+        verify(isbnFilter).put("123");
+        verify(searchIndex).index(saved);
+        verify(secondLevelCache).evictQueries();
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negócio ao salvar livro com isbn duplicado")
+    public void saveDuplicatedIsbnTest() {
+        when(repository.insert(any(Book.class))).thenReturn(Mono.error(duplicatedIsbn()));
+
+        StepVerifier.create(service.save(Book.builder().isbn("123").build()))
+                .expectErrorSatisfies(e -> assertThat(e).isInstanceOf(BusinessException.class).hasMessage("ISBN já cadastrado"))
+                .verify();
+
+        verifyNoInteractions(searchIndex);
+    }
+
+    @Test
+    @DisplayName("Deve obter o livro do cache antes de ir ao banco")
+    public void getByIdCachedTest() {
+        Book saved = savedBook(0L);
+        when(repository.findById(1L)).thenReturn(Mono.just(saved));
+
+        StepVerifier.create(service.getById(1L)).expectNext(saved).verifyComplete();
+        StepVerifier.create(service.getById(1L)).expectNext(saved).verifyComplete();
+
+        verify(repository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Deve atualizar um livro, despejando os caches e reindexando")
+    public void updateBookTest() {
+        cacheManager.getCache(CacheConfig.BOOKS).put(1L, savedBook(0L));
+        Book updated = savedBook(1L);
+        when(repository.update(any(Book.class))).thenReturn(Mono.just(1));
+        when(repository.findById(1L)).thenReturn(Mono.just(updated));
+
+        StepVerifier.create(service.update(savedBook(null))).expectNext(updated).verifyComplete();
+
+        assertThat(cacheManager.getCache(CacheConfig.BOOKS).get(1L)).isNull();
+        verify(secondLevelCache).evict(1L);
+        verify(searchIndex).index(updated);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de concorrência ao atualizar um livro em versão antiga")
+    public void updateStaleBookTest() {
+        when(repository.update(any(Book.class))).thenReturn(Mono.just(0));
+        when(repository.findById(1L)).thenReturn(Mono.just(savedBook(3L)));
+
+        StepVerifier.create(service.update(savedBook(0L)))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Deve completar vazio ao atualizar um livro inexistente")
+    public void updateNonExistentBookTest() {
+        when(repository.update(any(Book.class))).thenReturn(Mono.just(0));
+        when(repository.findById(1L)).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.update(savedBook(0L))).verifyComplete();
+        StepVerifier.create(service.update(savedBook(null))).verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Deve deletar um livro e removê-lo do índice")
+    public void deleteBookTest() {
+        when(repository.deleteById(1L)).thenReturn(Mono.just(1), Mono.just(0));
+
+        StepVerifier.create(service.deleteById(1L)).expectNext(true).verifyComplete();
+        StepVerifier.create(service.deleteById(1L)).expectNext(false).verifyComplete();
+
+        verify(searchIndex, times(1)).delete(1L);
+        verify(secondLevelCache, times(2)).evict(1L);
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar ordenação não suportada sem ir ao banco")
+    public void findInvalidSortTest() {
+        Throwable exception = catchThrowable(() -> service.find(new Book(), PageRequest.of(0, 10, Sort.by("version"))));
+
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Ordenação não suportada: version");
+        verifyNoInteractions(repository);
+    }
+
+    private Book savedBook(Long version) {
+        return Book.builder().id(1L).isbn("123").title("Titulo").author("Autor").version(version).build();
+    }
+
+    private DataIntegrityViolationException duplicatedIsbn() {
+        return new DataIntegrityViolationException("could not execute statement",
+                new SQLException("Unique index or primary key violation: \"PUBLIC.UX_BOOK_ISBN_INDEX_1 ON PUBLIC.BOOK(ISBN)\""));
+    }
+}
@@ -0,0 +1,117 @@
+package com.curso.tddrest.libraryapi.service;
+
+import com.curso.tddrest.libraryapi.config.CacheConfig;
+import com.curso.tddrest.libraryapi.datasource.ReadOnlyTransactions;
+import com.curso.tddrest.libraryapi.datasource.ReplicaLagFallback;
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.repository.BookRepository;
+import com.curso.tddrest.libraryapi.search.BookCountCache;
+import com.curso.tddrest.libraryapi.search.BookSearchIndex;
+import com.curso.tddrest.libraryapi.search.IsbnBloomFilter;
+import com.curso.tddrest.libraryapi.service.impl.BookServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig(BookServiceCacheTest.Config.class)
+public class BookServiceCacheTest {
+
+    // Sem @Configuration para não ser encontrada pelo component scan da aplicação (ex.: nos benchmarks).
+    @Import(CacheConfig.class)
+    static class Config {
+        @Bean
+        CacheManager cacheManager() {
+            return new CaffeineCacheManager(CacheConfig.BOOKS);
+        }
+
+        @Bean
+        BookService bookService(BookRepository repository) {
+            return new BookServiceImpl(repository, new BookSearchIndex(repository, false),
+                    new BookCountCache(Duration.ofMinutes(1), 100),
+                    new IsbnBloomFilter(repository, new SimpleMeterRegistry(), 1000, 0.01), ReadOnlyTransactions.none(),
+                    ReplicaLagFallback.disabled(), new SimpleMeterRegistry());
+        }
+    }
+
+    @Autowired
+    BookService service;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @MockBean
+    BookRepository repository;
+
+    private final Book book = Book.builder().id(1L).isbn("123").title("Titulo Bacana").author("Autor Famoso").build();
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager.getCache(CacheConfig.BOOKS).clear();
+    }
+
+    @Test
+    @DisplayName("Deve buscar o livro no banco uma única vez enquanto estiver em cache")
+    public void getByIdCachedTest() {
+        when(repository.findById(1L)).thenReturn(Optional.of(book));
+
+        Optional<Book> first = service.getById(1L);
+        Optional<Book> second = service.getById(1L);
+
+        assertThat(first).contains(book);
+        assertThat(second).contains(book);
+        verify(repository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Não deve guardar em cache livro inexistente")
+    public void getByIdNotFoundNotCachedTest() {
+        when(repository.findById(1L)).thenReturn(Optional.empty());
+
+        service.getById(1L);
+        service.getById(1L);
+
+        verify(repository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache ao atualizar e ao deletar um livro")
+    public void evictOnWriteTest() {
+        when(repository.findById(1L)).thenReturn(Optional.of(book));
+        when(repository.save(book)).thenReturn(book);
+
+        service.getById(1L);
+        service.update(book);
+        service.getById(1L);
+        service.delete(book);
+        service.getById(1L);
+
+        verify(repository, times(3)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache ao deletar um livro pelo id")
+    public void evictOnDeleteByIdTest() {
+        when(repository.findById(1L)).thenReturn(Optional.of(book));
+        when(repository.deleteBookById(1L)).thenReturn(1);
+
+        service.getById(1L);
+        service.deleteById(1L);
+        service.getById(1L);
+
+        verify(repository, times(2)).findById(1L);
+    }
+}
@@ -0,0 +1,184 @@
+package com.curso.tddrest.libraryapi.service;
+
+import com.curso.tddrest.libraryapi.exception.BusinessException;
+import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.search.BookSearchIndex;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class BookServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    BookService service;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @SpyBean
+    BookSearchIndex searchIndex;
+
+    @Test
+    @DisplayName("Deve aceitar só um cadastro quando vários pedidos concorrentes usam o mesmo ISBN")
+    public void concurrentDuplicatedIsbnTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int attempt = i;
+            Callable<Boolean> save = () -> {
+                start.await();
+                try {
+                    service.save(Book.builder().isbn("concorrente-1").title("Titulo " + attempt).author("Autor").build());
+                    return true;
+                } catch (BusinessException e) {
+                    assertThat(e.getMessage()).isEqualTo("ISBN já cadastrado");
+                    return false;
+                }
+            };
+            attempts.add(executor.submit(save));
+        }
+
+        start.countDown();
+        int created = 0;
+        for (Future<Boolean> attempt : attempts) {
+            if (attempt.get(30, TimeUnit.SECONDS)) {
+                created++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(created).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve cadastrar cada livro com um único comando no banco")
+    public void singleStatementPerInsertTest() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        int books = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        statistics.clear();
+
+        List<Future<Book>> saves = new ArrayList<>();
+        for (int i = 0; i < books; i++) {
+            Book book = Book.builder().isbn("vazao-" + i).title("Titulo " + i).author("Autor").build();
+            saves.add(executor.submit(() -> service.save(book)));
+        }
+        for (Future<Book> save : saves) {
+            assertThat(save.get(30, TimeUnit.SECONDS).getId()).isNotNull();
+        }
+        executor.shutdown();
+
+        // Antes eram dois comandos por cadastro (existsByIsbn + insert); agora só o insert e,
+        // a cada 50 ids, uma chamada à sequence.
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(books + books / 50 + THREADS);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(books);
+    }
+
+    @Test
+    @DisplayName("Deve aceitar só uma de várias atualizações concorrentes com a mesma versão esperada")
+    public void concurrentConditionalPatchTest() throws Exception {
+        Book book = service.save(Book.builder().isbn("versao-1").title("Original").author("Autor").build());
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Book changes = Book.builder().title("Titulo " + i).version(book.getVersion()).build();
+            attempts.add(executor.submit(() -> {
+                start.await();
+                try {
+                    return service.patch(book.getId(), changes);
+                } catch (OptimisticLockingFailureException e) {
+                    return false;
+                }
+            }));
+        }
+
+        start.countDown();
+        int updated = 0;
+        for (Future<Boolean> attempt : attempts) {
+            if (attempt.get(30, TimeUnit.SECONDS)) {
+                updated++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(updated).isEqualTo(1);
+        assertThat(service.getById(book.getId()).get().getVersion()).isEqualTo(book.getVersion() + 1);
+    }
+
+    @Test
+    @DisplayName("Deve ocupar uma única conexão enquanto buscas simultâneas iguais esperam a primeira")
+    public void coalescedSearchesHoldOneConnectionTest() throws Exception {
+        service.save(Book.builder().isbn("coalescido-1").title("Coalescido").author("Autor").build());
+        Book filter = Book.builder().title("Coalescido").build();
+        Pageable page = PageRequest.of(0, 10);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return invocation.callRealMethod();
+        }).when(searchIndex).search(any(Book.class), any(Pageable.class));
+        Counter coalesced = meterRegistry.get("library.singleflight.loads")
+                .tag("name", "find").tag("result", "coalesced").counter();
+        double coalescedBefore = coalesced.count();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Page<Book>>> searches = new ArrayList<>();
+        searches.add(executor.submit(() -> service.find(filter, page)));
+        assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i < THREADS; i++) {
+            searches.add(executor.submit(() -> service.find(filter, page)));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (coalesced.count() - coalescedBefore < THREADS - 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        int active = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean().getActiveConnections();
+        release.countDown();
+        for (Future<Page<Book>> search : searches) {
+            assertThat(search.get(30, TimeUnit.SECONDS).getContent()).extracting(Book::getIsbn).containsExactly("coalescido-1");
+        }
+        executor.shutdown();
+
+        assertThat(coalesced.count() - coalescedBefore).isEqualTo(THREADS - 1);
+        assertThat(active).isEqualTo(1);
+    }
+}
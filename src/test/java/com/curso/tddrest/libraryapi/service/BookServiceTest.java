@@ -1,31 +1,59 @@
 package com.curso.tddrest.libraryapi.service;
 
+import com.curso.tddrest.libraryapi.datasource.ReadOnlyTransactions;
+import com.curso.tddrest.libraryapi.datasource.ReplicaLagFallback;
 import com.curso.tddrest.libraryapi.exception.BusinessException;
+import com.curso.tddrest.libraryapi.model.batch.BookBatchResult;
 import com.curso.tddrest.libraryapi.model.entity.Book;
+import com.curso.tddrest.libraryapi.model.pagination.BookKeyset;
 import com.curso.tddrest.libraryapi.repository.BookRepository;
+import com.curso.tddrest.libraryapi.search.BookCountCache;
+import com.curso.tddrest.libraryapi.search.BookSearchIndex;
+import com.curso.tddrest.libraryapi.search.IsbnBloomFilter;
 import com.curso.tddrest.libraryapi.service.impl.BookServiceImpl;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.sql.SQLException;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
@@ -36,9 +64,12 @@ public class BookServiceTest {
     @MockBean
     BookRepository repository;
 
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @BeforeEach
     public void setUp(){
-        this.service = new BookServiceImpl(repository);
+        this.service = new BookServiceImpl(repository, new BookSearchIndex(repository, false), newCountCache(), newIsbnFilter(),
+                ReadOnlyTransactions.none(), ReplicaLagFallback.disabled(), meterRegistry);
     }
 
     @Test
@@ -46,8 +77,7 @@ public class BookServiceTest {
     public void SaveBook(){
         Book book = bookRequest();
 
-        when(repository.existsByIsbn(anyString())).thenReturn(false);
-        when(repository.save(book))
+        when(repository.saveAndFlush(book))
                 .thenReturn(Book.builder()
                         .id(1L)
                         .isbn("123")
@@ -69,14 +99,83 @@ public class BookServiceTest {
     public void saveBookWithDuplicatedIsbn(){
 
         Book book = bookRequest();
-        when(repository.existsByIsbn(anyString())).thenReturn(true);
+        when(repository.saveAndFlush(book)).thenThrow(duplicatedIsbn());
 
         Throwable exception = Assertions.catchThrowable(() -> service.save(book));
 
         assertThat(exception).isInstanceOf(BusinessException.class)
                 .hasMessage("ISBN já cadastrado");
 
-        verify(repository, never()).save(book);
+        verify(repository, never()).existsByIsbn(anyString());
+    }
+
+    @Test
+    @DisplayName("Não deve traduzir violação de integridade que não seja do ISBN")
+    public void saveBookWithOtherIntegrityViolation(){
+        Book book = bookRequest();
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("NULL not allowed for column TITLE");
+        when(repository.saveAndFlush(book)).thenThrow(violation);
+
+        Throwable exception = Assertions.catchThrowable(() -> service.save(book));
+
+        assertThat(exception).isSameAs(violation);
+    }
+
+    @Test
+    @DisplayName("Não deve consultar ISBNs já cadastrados quando o filtro de ISBN descarta o lote")
+    public void saveAllSkipsExistingLookupWhenIsbnFilterSaysAbsent(){
+        IsbnBloomFilter isbnFilter = newIsbnFilter();
+        when(repository.streamIsbns()).thenReturn(Stream.of("999"));
+        isbnFilter.load();
+        BookService filteredService = new BookServiceImpl(repository, new BookSearchIndex(repository, false),
+                newCountCache(), isbnFilter, ReadOnlyTransactions.none(), ReplicaLagFallback.disabled(),
+                new SimpleMeterRegistry());
+        Book book = bookRequest();
+
+        filteredService.saveAll(Collections.singletonList(book));
+
+        verify(repository, never()).findExistingIsbns(anyCollection());
+        verify(repository).insertAll(Collections.singletonList(book));
+        assertThat(isbnFilter.mightContain("123")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve gravar o lote um a um quando outro pedido cadastrar um dos ISBNs antes do insert")
+    public void saveAllRetriesOneByOneOnDuplicatedIsbn(){
+        Book first = Book.builder().isbn("1").title("Titulo 1").author("Autor 1").build();
+        Book raced = Book.builder().isbn("2").title("Titulo 2").author("Autor 2").build();
+        doThrow(duplicatedIsbn()).when(repository).insertAll(anyList());
+        when(repository.saveAndFlush(any(Book.class))).thenAnswer(invocation -> {
+            Book book = invocation.getArgument(0);
+            if (book.getIsbn().equals("2")) {
+                throw duplicatedIsbn();
+            }
+            return Book.builder().id(1L).isbn(book.getIsbn()).title(book.getTitle()).author(book.getAuthor()).build();
+        });
+
+        List<BookBatchResult> results = service.saveAll(Arrays.asList(first, raced));
+
+        assertThat(results).extracting(BookBatchResult::isCreated).containsExactly(true, false);
+        assertThat(results.get(0).getBook().getId()).isEqualTo(1L);
+        assertThat(results.get(1).getError()).isEqualTo("ISBN já cadastrado");
+    }
+
+    @Test
+    @DisplayName("Deve salvar livros em lote rejeitando ISBNs já cadastrados ou repetidos no lote")
+    public void saveAllTest(){
+        Book first = Book.builder().isbn("1").title("Titulo 1").author("Autor 1").build();
+        Book existing = Book.builder().isbn("2").title("Titulo 2").author("Autor 2").build();
+        Book repeated = Book.builder().isbn("1").title("Titulo 3").author("Autor 3").build();
+
+        when(repository.findExistingIsbns(anyCollection())).thenReturn(Collections.singleton("2"));
+
+        List<BookBatchResult> results = service.saveAll(Arrays.asList(first, existing, repeated));
+
+        assertThat(results).extracting(BookBatchResult::isCreated).containsExactly(true, false, false);
+        assertThat(results.get(1).getError()).isEqualTo("ISBN já cadastrado");
+        assertThat(results.get(2).getError()).isEqualTo("ISBN já cadastrado");
+        verify(repository, times(1)).findExistingIsbns(anyCollection());
+        verify(repository).insertAll(Collections.singletonList(first));
     }
 
     @Test
@@ -114,6 +213,142 @@ public class BookServiceTest {
         verify(repository, times(1)).delete(book);
     }
 
+    @Test
+    @DisplayName("Deve deletar um livro pelo id com um único comando")
+    public void deleteByIdTest(){
+        when(repository.deleteBookById(1L)).thenReturn(1);
+
+        boolean deleted = service.deleteById(1L);
+
+        assertThat(deleted).isTrue();
+        verify(repository, never()).findById(anyLong());
+        verify(repository, never()).delete(any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Deve informar quando não houver livro para deletar pelo id")
+    public void deleteByIdNotFoundTest(){
+        when(repository.deleteBookById(1L)).thenReturn(0);
+
+        assertThat(service.deleteById(1L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve dividir uma única consulta entre leituras simultâneas do mesmo livro")
+    public void getByIdCoalescedTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findById(1L)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(Book.builder().id(1L).isbn("123").build());
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Optional<Book>>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> service.getById(1L)));
+            }
+            while (meterRegistry.get("library.singleflight.loads").tag("name", "getById").tag("result", "coalesced")
+                    .counter().count() < 3) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<Optional<Book>> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).hasValueSatisfying(book -> assertThat(book.getIsbn()).isEqualTo("123"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(repository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Deve obter vários livros em consultas IN de até 1000 ids, na ordem pedida")
+    public void getByIdsTest(){
+        List<Long> ids = LongStream.rangeClosed(1, 1500).boxed().collect(Collectors.toList());
+        Collections.reverse(ids);
+        when(repository.findAllById(anyList())).thenAnswer(invocation -> {
+            List<Long> chunk = invocation.getArgument(0);
+            return chunk.stream()
+                    .filter(id -> id % 2 == 0)
+                    .map(id -> Book.builder().id(id).isbn("isbn-" + id).build())
+                    .collect(Collectors.toList());
+        });
+
+        Map<Long, Book> books = service.getByIds(ids);
+
+        verify(repository, times(2)).findAllById(anyList());
+        assertThat(books).hasSize(750);
+        assertThat(books.keySet()).startsWith(1500L, 1498L).endsWith(4L, 2L);
+        assertThat(books.get(10L).getIsbn()).isEqualTo("isbn-10");
+    }
+
+    @Test
+    @DisplayName("Deve deletar vários livros pelo id num único comando")
+    public void deleteAllByIdTest(){
+        List<Long> ids = Arrays.asList(1L, 2L, 3L);
+        when(repository.deleteBooksByIds(ids)).thenReturn(2);
+
+        int deleted = service.deleteAllById(ids);
+
+        assertThat(deleted).isEqualTo(2);
+        verify(repository, times(1)).deleteBooksByIds(ids);
+    }
+
+    @Test
+    @DisplayName("Deve atualizar parcialmente sem carregar o livro")
+    public void patchTest(){
+        Book changes = Book.builder().title("Novo Titulo").build();
+        when(repository.patch(1L, changes)).thenReturn(1);
+
+        boolean patched = service.patch(1L, changes);
+
+        assertThat(patched).isTrue();
+        verify(repository, never()).findById(anyLong());
+        verify(repository, never()).save(any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Deve informar quando não houver livro para atualizar parcialmente")
+    public void patchNotFoundTest(){
+        when(repository.patch(anyLong(), any(Book.class))).thenReturn(0);
+
+        assertThat(service.patch(1L, Book.builder().author("Outro").build())).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de concorrência quando a versão esperada estiver desatualizada")
+    public void patchStaleVersionTest(){
+        Book changes = Book.builder().title("Novo Titulo").version(2L).build();
+        when(repository.patch(1L, changes)).thenReturn(0);
+        when(repository.existsById(1L)).thenReturn(true);
+
+        Throwable exception = Assertions.catchThrowable(() -> service.patch(1L, changes));
+
+        assertThat(exception).isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    @Test
+    @DisplayName("Deve informar livro inexistente mesmo com versão esperada")
+    public void patchVersionNotFoundTest(){
+        Book changes = Book.builder().title("Novo Titulo").version(2L).build();
+        when(repository.patch(1L, changes)).thenReturn(0);
+        when(repository.existsById(1L)).thenReturn(false);
+
+        assertThat(service.patch(1L, changes)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negócio ao atualizar parcialmente sem nenhum campo")
+    public void patchWithoutFieldsTest(){
+        Throwable exception = Assertions.catchThrowable(() -> service.patch(1L, new Book()));
+
+        assertThat(exception).isInstanceOf(BusinessException.class)
+                .hasMessage("Informe ao menos um campo para atualizar");
+        verify(repository, never()).patch(anyLong(), any(Book.class));
+    }
+
     @Test
     @DisplayName("Deve apresentar erro ao tentar deletar livro inválido")
     public void deleteBookInvalidTest(){
@@ -168,6 +403,110 @@ public class BookServiceTest {
         assertThat(result.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Deve filtrar pelo índice de busca sem consultar o banco com LIKE")
+    public void bookFilterWithSearchIndexTest(){
+        BookSearchIndex searchIndex = new BookSearchIndex(repository, true);
+        when(repository.streamIndexedBooks()).thenReturn(Stream.empty());
+        searchIndex.rebuild();
+        BookService indexedService = new BookServiceImpl(repository, searchIndex, newCountCache(), newIsbnFilter(),
+                ReadOnlyTransactions.none(), ReplicaLagFallback.disabled(), new SimpleMeterRegistry());
+
+        Book first = getBook(1L);
+        Book second = Book.builder().id(2L).isbn("456").title("Outro Livro").author("Outro Autor").build();
+        searchIndex.index(Arrays.asList(first, second));
+        when(repository.findAllById(Collections.singletonList(1L))).thenReturn(Collections.singletonList(first));
+
+        Page<Book> result = indexedService.find(Book.builder().title("BACANA").build(), PageRequest.of(0, 10));
+
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(result.getContent()).containsExactly(first);
+        verify(repository, never()).findAll(any(Example.class), any(PageRequest.class));
+    }
+
+    @Test
+    @DisplayName("Deve continuar a paginação por cursor pela propriedade gravada no cursor")
+    public void findAfterTest(){
+        Book filter = new Book();
+        BookKeyset after = new BookKeyset("title", 1L, "Titulo Bacana");
+        List<Book> books = Arrays.asList(getBook(2L));
+        when(repository.findAfter(filter, "title", after, 10)).thenReturn(books);
+
+        List<Book> result = service.findAfter(filter, "id", after, 10);
+
+        assertThat(result).isEqualTo(books);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro ao paginar por cursor com ordenação não suportada")
+    public void findAfterInvalidSortTest(){
+        Throwable exception = Assertions.catchThrowable(() -> service.findAfter(new Book(), "editora", null, 10));
+
+        assertThat(exception).isInstanceOf(BusinessException.class)
+                .hasMessage("Ordenação não suportada: editora");
+    }
+
+    @Test
+    @DisplayName("Deve filtrar em modo slice sem contar os registros")
+    public void bookFilterSliceTest(){
+        Book filter = Book.builder().title("ba").build();
+        PageRequest pageRequest = PageRequest.of(0, 1);
+        Slice<Book> slice = new SliceImpl<>(Arrays.asList(getBook(1L)), pageRequest, true);
+        when(repository.findSlice(filter, pageRequest)).thenReturn(slice);
+
+        Slice<Book> result = service.findSlice(filter, pageRequest);
+
+        assertThat(result.hasNext()).isTrue();
+        assertThat(result.getContent()).hasSize(1);
+        verify(repository, never()).countMatching(any(Book.class));
+        verify(repository, never()).findAll(any(Example.class), any(PageRequest.class));
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar o total em cache para o mesmo filtro normalizado")
+    public void bookFilterCachedCountTest(){
+        PageRequest firstPage = PageRequest.of(0, 1);
+        PageRequest secondPage = PageRequest.of(1, 1);
+        when(repository.findSlice(any(Book.class), any(PageRequest.class))).thenAnswer(invocation ->
+                new SliceImpl<>(Arrays.asList(getBook(1L)), invocation.getArgument(1), true));
+        when(repository.countMatching(any(Book.class))).thenReturn(5L);
+
+        Page<Book> first = service.findWithCachedCount(Book.builder().title("Ba").build(), firstPage);
+        Page<Book> second = service.findWithCachedCount(Book.builder().title("bA").build(), secondPage);
+
+        assertThat(first.getTotalElements()).isEqualTo(5);
+        assertThat(second.getTotalElements()).isEqualTo(5);
+        verify(repository, times(1)).countMatching(any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Deve exportar os livros do filtro e fechar o fluxo")
+    public void exportTest(){
+        Book filter = Book.builder().author("Autor").build();
+        boolean[] closed = {false};
+        when(repository.streamMatching(filter))
+                .thenReturn(Stream.of(getBook(1L), getBook(2L)).onClose(() -> closed[0] = true));
+
+        List<Book> exported = new ArrayList<>();
+        service.export(filter, exported::add);
+
+        assertThat(exported).extracting(Book::getId).containsExactly(1L, 2L);
+        assertThat(closed[0]).isTrue();
+    }
+
+    private DataIntegrityViolationException duplicatedIsbn() {
+        return new DataIntegrityViolationException("could not execute statement",
+                new SQLException("Unique index or primary key violation: \"PUBLIC.UX_BOOK_ISBN_INDEX_1 ON PUBLIC.BOOK(ISBN)\""));
+    }
+
+    private IsbnBloomFilter newIsbnFilter() {
+        return new IsbnBloomFilter(repository, new SimpleMeterRegistry(), 1000, 0.01);
+    }
+
+    private BookCountCache newCountCache() {
+        return new BookCountCache(Duration.ofMinutes(1), 100);
+    }
+
     private Book getBook(Long id) {
         return Book.builder()
                 .id(id)
@@ -0,0 +1,8 @@
+-- Esquema da réplica H2 do ReadReplicaRoutingTest; o Hibernate só cria as tabelas no primário.
+create table if not exists book (
+    id bigint not null primary key,
+    author varchar(255),
+    isbn varchar(255),
+    title varchar(255),
+    version bigint
+);